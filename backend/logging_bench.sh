@@ -0,0 +1,88 @@
+#!/bin/sh
+# Measures request throughput and log volume under three logging setups:
+#   1. production levels (INFO), JSON through the ring-buffer appender
+#   2. dev profile (DEBUG app, security and SQL) with security DEBUG sampled
+#   3. dev profile unsampled plus show-sql, i.e. the old every-line echo
+# Stdout is written to a file, as it would be under a log shipper.
+# Usage: ./logging_bench.sh [REQUESTS] [CONCURRENCY] [PORT]
+# Set SKIP_BUILD=1 to reuse target/spark-doubt-backend-1.0.0.jar.
+
+REQUESTS=${1:-4000}
+CONCURRENCY=${2:-16}
+PORT=${3:-8080}
+cd "$(dirname "$0")"
+ROOT=$(pwd)
+JAR="$ROOT/target/spark-doubt-backend-1.0.0.jar"
+WORK="$ROOT/target/logging-bench"
+BASE="http://localhost:${PORT}/api"
+
+if [ "$SKIP_BUILD" != "1" ]; then
+  echo "📦 Building jar..."
+  mvn -B -q -DskipTests package || exit 1
+fi
+rm -rf "$WORK" && mkdir -p "$WORK"
+
+now_ms() { echo $(($(date +%s%N) / 1000000)); }
+
+seed() {
+  curl -s -X POST "$BASE/auth/register" -H "Content-Type: application/json" \
+    -d '{"name":"bench","email":"bench@example.com","password":"benchPass1"}' > /dev/null
+  TOKEN=$(curl -s -X POST "$BASE/auth/login" -H "Content-Type: application/json" \
+    -d '{"email":"bench@example.com","password":"benchPass1"}' | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+  PAGE_ID=$(curl -s "$BASE/pages/name/CSE" | sed -n 's/.*"id":"\([^"]*\)".*/\1/p' | head -n1)
+  i=1
+  while [ "$i" -le 20 ]; do
+    Q=$(curl -s -X POST "$BASE/questions" -H "Content-Type: application/json" -H "Authorization: Bearer $TOKEN" \
+      -d "{\"title\":\"Logging bench question $i\",\"description\":\"Seeded so listings have rows to render.\",\"pageId\":\"$PAGE_ID\"}" \
+      | sed -n 's/.*"id":"\([^"]*\)".*/\1/p' | head -n1)
+    curl -s -o /dev/null -X POST "$BASE/replies/question/$Q" -H "Content-Type: application/json" \
+      -H "Authorization: Bearer $TOKEN" -d '{"content":"A reply for the listing to count."}'
+    i=$((i + 1))
+  done
+  # Authenticated reads: each goes through the JWT filter and the security chain
+  : > "$WORK/urls"
+  i=0
+  while [ "$i" -lt "$REQUESTS" ]; do
+    if [ $((i % 2)) -eq 0 ]; then
+      echo "url = \"$BASE/questions/page/$PAGE_ID?page=0&size=20\"" >> "$WORK/urls"
+    else
+      echo "url = \"$BASE/questions/$Q\"" >> "$WORK/urls"
+    fi
+    echo "output = /dev/null" >> "$WORK/urls"
+    i=$((i + 1))
+  done
+}
+
+# $1 label, remaining args: extra application arguments
+measure() {
+  LABEL=$1; shift
+  rm -rf "$WORK/data"
+  # seed posts 40 times as one user, past the default posting limits
+  java -jar "$JAR" --server.port="$PORT" --spring.datasource.url="jdbc:h2:file:$WORK/data/sparkdb" \
+    --spark.moderation.burst=1000 --spark.moderation.posts-per-hour=100000 "$@" \
+    > "$WORK/app.log" 2>&1 &
+  PID=$!
+  until curl -s -o /dev/null -f "$BASE/pages"; do
+    if ! kill -0 $PID 2>/dev/null; then echo "   $LABEL failed to start, see $WORK/app.log"; return; fi
+    sleep 0.1
+  done
+  seed
+  # Warm up, then measure
+  curl -s -Z --parallel-max "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" -K "$WORK/urls" > /dev/null 2>&1
+  BYTES_BEFORE=$(wc -c < "$WORK/app.log")
+  START=$(now_ms)
+  curl -s -Z --parallel-max "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" -K "$WORK/urls" > /dev/null 2>&1
+  ELAPSED=$(($(now_ms) - START))
+  sleep 1
+  BYTES=$(($(wc -c < "$WORK/app.log") - BYTES_BEFORE))
+  kill $PID; wait $PID 2>/dev/null
+  awk -v label="$LABEL" -v n="$REQUESTS" -v ms="$ELAPSED" -v bytes="$BYTES" 'BEGIN {
+    printf "%-34s %8.1f req/s %8.2f ms/req %9.0f log bytes/req\n", label, n * 1000 / ms, ms / n, bytes / n }'
+}
+
+echo ""
+echo "⏱️  $REQUESTS authenticated GETs, $CONCURRENCY in flight:"
+measure "INFO, JSON ring buffer"
+measure "DEBUG (dev), security sampled 1/10" --spring.profiles.active=dev
+measure "DEBUG (dev), unsampled + show-sql" --spring.profiles.active=dev \
+  --spark.logging.debug-sample-rate=1 --spring.jpa.show-sql=true
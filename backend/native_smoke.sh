@@ -0,0 +1,133 @@
+#!/bin/sh
+# Runs an endpoint check against every controller on the native executable
+# and on the JVM jar, then compares startup time and resident memory.
+# Usage: ./native_smoke.sh [BINARY] [JAR] [PORT]
+#
+# Build both first:
+#   mvn -B -DskipTests package && cp target/spark-doubt-backend-1.0.0.jar target/app-jvm.jar
+#   mvn -B -DskipTests -Pnative package
+# Pass "-" as BINARY or JAR to skip that target.
+
+cd "$(dirname "$0")"
+ROOT=$(pwd)
+BINARY=${1:-$ROOT/target/spark-doubt-backend}
+JAR=${2:-$ROOT/target/app-jvm.jar}
+PORT=${3:-8080}
+BASE="http://localhost:${PORT}/api"
+WORK="$ROOT/target/native-smoke"
+
+now_ms() { echo $(($(date +%s%N) / 1000000)); }
+
+# $1 label, $2 expected status, remaining args: curl arguments
+check() {
+  LABEL=$1; EXPECTED=$2; shift 2
+  STATUS=$(curl -s -o "$WORK/body" -w "%{http_code}" "$@")
+  if [ "$STATUS" = "$EXPECTED" ]; then
+    echo "   ok    $STATUS $LABEL"
+  else
+    echo "   FAIL  $STATUS $LABEL (expected $EXPECTED): $(head -c 200 "$WORK/body")"
+    FAILURES=$((FAILURES + 1))
+  fi
+}
+
+json_field() { sed -n "s/.*\"$1\":\"\\([^\"]*\\)\".*/\\1/p" "$WORK/body" | head -n1; }
+
+smoke() {
+  JSON="Content-Type: application/json"
+
+  echo " AuthController"
+  check "register" 200 -X POST "$BASE/auth/register" -H "$JSON" \
+    -d '{"name":"native","email":"native@example.com","password":"nativePass1"}'
+  check "login" 200 -X POST "$BASE/auth/login" -H "$JSON" \
+    -d '{"email":"native@example.com","password":"nativePass1"}'
+  REFRESH=$(json_field refreshToken)
+  check "bad credentials" 401 -X POST "$BASE/auth/login" -H "$JSON" \
+    -d '{"email":"native@example.com","password":"wrong"}'
+  check "refresh" 200 -X POST "$BASE/auth/refresh" -H "$JSON" -d "{\"refreshToken\":\"$REFRESH\"}"
+  TOKEN=$(json_field token)
+  AUTH="Authorization: Bearer $TOKEN"
+  check "reused refresh token" 401 -X POST "$BASE/auth/refresh" -H "$JSON" -d "{\"refreshToken\":\"$REFRESH\"}"
+
+  echo " PageController"
+  check "list pages" 200 "$BASE/pages"
+  PAGE_ID=$(sed -n 's/.*"id":"\([^"]*\)","name":"CSE".*/\1/p' "$WORK/body")
+  check "page by id" 200 "$BASE/pages/$PAGE_ID"
+  check "page by name" 200 "$BASE/pages/name/CSE"
+  check "create page rejected for non-admin" 400 -X POST "$BASE/pages" -H "$JSON" -H "$AUTH" -d '{"name":"x"}'
+
+  echo " QuestionController"
+  check "create question" 200 -X POST "$BASE/questions" -H "$JSON" -H "$AUTH" \
+    -d "{\"title\":\"Native question\",\"description\":\"Does the native image work?\",\"pageId\":\"$PAGE_ID\",\"tags\":[\"graalvm\"]}"
+  Q_ID=$(json_field id)
+  check "question by id" 200 -D "$WORK/headers" "$BASE/questions/$Q_ID"
+  ETAG=$(sed -n 's/^[Ee][Tt]ag: *\(.*\)\r$/\1/p' "$WORK/headers")
+  check "conditional get" 304 -H "If-None-Match: $ETAG" "$BASE/questions/$Q_ID"
+  check "update question" 200 -X PUT "$BASE/questions/$Q_ID" -H "$JSON" -H "$AUTH" -H "If-Match: \"0\"" \
+    -d "{\"title\":\"Native question (edited)\",\"description\":\"Yes, it starts and serves requests.\",\"pageId\":\"$PAGE_ID\"}"
+  check "stale update" 412 -X PUT "$BASE/questions/$Q_ID" -H "$JSON" -H "$AUTH" -H "If-Match: \"0\"" \
+    -d "{\"title\":\"Stale\",\"description\":\"This edit was based on version 0.\",\"pageId\":\"$PAGE_ID\"}"
+  check "questions by page" 200 "$BASE/questions/page/$PAGE_ID?page=0&size=20"
+  check "questions by page name" 200 "$BASE/questions/page/name/CSE?page=0&size=20"
+  check "feed (json)" 200 "$BASE/questions/feed?pageId=$PAGE_ID"
+  check "feed (cbor)" 200 -H "Accept: application/cbor" "$BASE/questions/feed?pageId=$PAGE_ID"
+  check "feed (smile, gzip)" 200 --compressed -H "Accept: application/x-jackson-smile" "$BASE/questions/feed"
+  check "feed by tags" 200 "$BASE/questions/feed?tags=graalvm,spring&match=any"
+  check "popular tags" 200 "$BASE/tags"
+
+  echo " ReplyController"
+  check "create reply" 200 -X POST "$BASE/replies/question/$Q_ID" -H "$JSON" -H "$AUTH" \
+    -d '{"content":"It does."}'
+  R_ID=$(json_field id)
+  check "replies for question" 200 "$BASE/replies/question/$Q_ID"
+  check "replies by score" 200 "$BASE/replies/question/$Q_ID?sort=score"
+  check "vote on own reply rejected" 400 -X PUT "$BASE/replies/$R_ID/vote" -H "$AUTH"
+  check "accept reply" 200 -X PUT "$BASE/questions/$Q_ID/accepted-reply/$R_ID" -H "$AUTH"
+  check "update reply" 200 -X PUT "$BASE/replies/$R_ID" -H "$JSON" -H "$AUTH" -d '{"content":"It really does."}'
+  check "thread batch" 200 "$BASE/questions/batch?ids=$Q_ID"
+  check "delete reply" 200 -X DELETE "$BASE/replies/$R_ID" -H "$AUTH"
+  check "delete question" 200 -X DELETE "$BASE/questions/$Q_ID" -H "$AUTH"
+  check "deleted question is gone" 400 "$BASE/questions/$Q_ID"
+
+  echo " OutboxController"
+  check "outbox needs admin" 403 "$BASE/outbox"
+}
+
+# $1 label, remaining args: command line
+run() {
+  TARGET=$1; shift
+  rm -rf "$WORK/data"
+  FAILURES=0
+  echo ""
+  echo "▶ $TARGET"
+  START=$(now_ms)
+  "$@" --server.port="$PORT" --spring.datasource.url="jdbc:h2:file:$WORK/data/sparkdb" > "$WORK/$TARGET.log" 2>&1 &
+  PID=$!
+  until curl -s -o /dev/null -f "$BASE/pages"; do
+    if ! kill -0 $PID 2>/dev/null; then echo "   failed to start, see $WORK/$TARGET.log"; return 1; fi
+    sleep 0.02
+  done
+  FIRST=$(($(now_ms) - START))
+  IDLE_RSS=$(awk '/VmRSS/ { print $2 }' /proc/$PID/status)
+  smoke
+  RSS=$(awk '/VmRSS/ { print $2 }' /proc/$PID/status)
+  PEAK=$(awk '/VmHWM/ { print $2 }' /proc/$PID/status)
+  kill $PID; wait $PID 2>/dev/null
+  printf "%-8s %6d ms %9d KB %9d KB %9d KB %4d\n" "$TARGET" "$FIRST" "$IDLE_RSS" "$RSS" "$PEAK" "$FAILURES" >> "$WORK/summary.txt"
+  [ "$FAILURES" -eq 0 ]
+}
+
+mkdir -p "$WORK" && : > "$WORK/summary.txt"
+RESULT=0
+if [ "$BINARY" != "-" ]; then
+  [ -x "$BINARY" ] || { echo "No native binary at $BINARY (mvn -Pnative package)"; exit 1; }
+  run native "$BINARY" || RESULT=1
+fi
+if [ "$JAR" != "-" ]; then
+  [ -f "$JAR" ] || { echo "No jar at $JAR"; exit 1; }
+  run jvm java -jar "$JAR" || RESULT=1
+fi
+
+echo ""
+echo "📊 target   first req   idle RSS   RSS after smoke   peak RSS   failures"
+cat "$WORK/summary.txt"
+exit $RESULT
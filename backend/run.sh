@@ -45,4 +45,4 @@ echo ""
 echo "Press Ctrl+C to stop the server"
 echo ""
 
-mvn spring-boot:run
+mvn spring-boot:run -Dspring-boot.run.profiles=dev
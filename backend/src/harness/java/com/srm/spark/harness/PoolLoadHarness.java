@@ -0,0 +1,220 @@
+package com.srm.spark.harness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srm.spark.SparkDoubtApplication;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Boots the application with the postgres profile against an embedded
+ * PostgreSQL (or harness.jdbc-url) once per pool size, drives a mixed
+ * read/write HTTP load and reports throughput, latency and what the pool saw
+ * (pending threads, acquire time, timeouts).
+ *
+ * <pre>
+ * mvn -Pembedded-pg compile exec:java -Dharness.pool-sizes=auto,4,8,16 -Dharness.threads=32 -Dharness.seconds=20
+ * </pre>
+ */
+public class PoolLoadHarness {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private String base;
+    private String token;
+    private String pageId;
+    private List<String> questionIds;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> poolSizes = Arrays.asList(System.getProperty("harness.pool-sizes", "auto,4,8,16").split(","));
+        int threads = Integer.getInteger("harness.threads", 32);
+        int seconds = Integer.getInteger("harness.seconds", 20);
+        int seed = Integer.getInteger("harness.seed-questions", 50);
+
+        String jdbcUrl = System.getProperty("harness.jdbc-url", "");
+        String user = System.getProperty("harness.user", "postgres");
+        String password = System.getProperty("harness.password", "postgres");
+        EmbeddedPostgres postgres = null;
+        if (jdbcUrl.isBlank()) {
+            postgres = EmbeddedPostgres.builder().start();
+            jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        List<String> rows = new ArrayList<>();
+        try {
+            for (String poolSize : poolSizes) {
+                rows.add(new PoolLoadHarness().run(poolSize.trim(), jdbcUrl, user, password, threads, seconds, seed));
+            }
+        } finally {
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+
+        System.out.printf("%n%d client threads, %d s per run, %d cores%n", threads, seconds,
+                Runtime.getRuntime().availableProcessors());
+        System.out.println("pool      req/s     p50 ms   p99 ms   max pending  acquire ms  timeouts  errors");
+        rows.forEach(System.out::println);
+    }
+
+    private String run(String poolSize, String jdbcUrl, String user, String password,
+                       int threads, int seconds, int seed) throws Exception {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=" + user,
+                "--spring.datasource.password=" + password,
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                // One user posts the whole write mix, far above the per-user posting limits
+                "--spark.moderation.burst=1000000",
+                "--spark.moderation.posts-per-hour=1000000",
+                "--logging.level.com.srm=WARN",
+                "--logging.level.org.springframework.security=WARN"));
+        if (!"auto".equals(poolSize)) {
+            args.add("--spring.datasource.hikari.maximum-pool-size=" + poolSize);
+            args.add("--spring.datasource.hikari.minimum-idle=" + poolSize);
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SparkDoubtApplication.class)
+                .profiles("postgres")
+                .run(args.toArray(String[]::new))) {
+            base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+            HikariDataSource dataSource = context.getBean(HikariDataSource.class);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+            seed(seed);
+            Timer acquire = registry.get("hikaricp.connections.acquire").timer();
+            Counter timeouts = registry.get("hikaricp.connections.timeout").counter();
+            long acquireCountBefore = acquire.count();
+            double acquireMillisBefore = acquire.totalTime(TimeUnit.MILLISECONDS);
+            double timeoutsBefore = timeouts.count();
+
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            AtomicInteger maxPending = new AtomicInteger();
+            ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+            sampler.scheduleAtFixedRate(() -> maxPending.accumulateAndGet(pool.getThreadsAwaitingConnection(), Math::max),
+                    0, 20, TimeUnit.MILLISECONDS);
+
+            LongAdder errors = new LongAdder();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            ExecutorService clients = Executors.newFixedThreadPool(threads);
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(clients.submit(() -> drive(deadline, errors)));
+            }
+            List<Long> latencies = new ArrayList<>();
+            for (Future<List<Long>> result : results) {
+                latencies.addAll(result.get());
+            }
+            clients.shutdown();
+            sampler.shutdownNow();
+            latencies.sort(null);
+
+            long acquireCount = acquire.count() - acquireCountBefore;
+            double acquireMean = acquireCount == 0 ? 0
+                    : (acquire.totalTime(TimeUnit.MILLISECONDS) - acquireMillisBefore) / acquireCount;
+            return String.format("%-8s %7.1f  %8.2f %8.2f  %11d  %10.3f  %8.0f  %6d",
+                    "auto".equals(poolSize) ? "auto(" + dataSource.getMaximumPoolSize() + ")" : poolSize,
+                    latencies.size() / (double) seconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    maxPending.get(), acquireMean, timeouts.count() - timeoutsBefore, errors.sum());
+        }
+    }
+
+    private void seed(int questions) throws Exception {
+        String email = "pool-harness-" + System.nanoTime() + "@example.com";
+        send("POST", "/auth/register", null,
+                "{\"name\":\"harness\",\"email\":\"" + email + "\",\"password\":\"harnessPass1\"}");
+        token = json(send("POST", "/auth/login", null,
+                "{\"email\":\"" + email + "\",\"password\":\"harnessPass1\"}")).path("token").asText();
+        pageId = json(send("GET", "/pages/name/CSE", null, null)).path("id").asText();
+        questionIds = new ArrayList<>();
+        for (int i = 0; i < questions; i++) {
+            questionIds.add(json(send("POST", "/questions", token,
+                    "{\"title\":\"Pool harness question " + i + "\",\"description\":\"Seeded to give the load a working set.\","
+                            + "\"pageId\":\"" + pageId + "\"}")).path("id").asText());
+        }
+    }
+
+    /** Mix: 50% page listing, 20% single question, 15% feed, 15% reply insert. */
+    private List<Long> drive(long deadline, LongAdder errors) {
+        List<Long> latencies = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            String questionId = questionIds.get(random.nextInt(questionIds.size()));
+            int roll = random.nextInt(100);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response;
+                if (roll < 50) {
+                    response = send("GET", "/questions/page/" + pageId + "?page=0&size=20", null, null);
+                } else if (roll < 70) {
+                    response = send("GET", "/questions/" + questionId, null, null);
+                } else if (roll < 85) {
+                    response = send("GET", "/questions/feed?pageId=" + pageId + "&size=50", null, null);
+                } else {
+                    response = send("POST", "/replies/question/" + questionId, token,
+                            "{\"content\":\"Reply written by the pool harness.\"}");
+                }
+                if (response.statusCode() >= 400) {
+                    errors.increment();
+                }
+            } catch (Exception e) {
+                errors.increment();
+            }
+            latencies.add(System.nanoTime() - start);
+        }
+        return latencies;
+    }
+
+    private HttpResponse<String> send(String method, String path, String bearer, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(30));
+        if (bearer != null) {
+            request.header("Authorization", "Bearer " + bearer);
+        }
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        request.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonNode json(HttpResponse<String> response) throws Exception {
+        return MAPPER.readTree(response.body());
+    }
+
+    private static double percentile(List<Long> sortedNanos, double p) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.min(sortedNanos.size() - 1, Math.ceil(p * sortedNanos.size()) - 1);
+        return sortedNanos.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+}
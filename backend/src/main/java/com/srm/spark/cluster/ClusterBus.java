@@ -0,0 +1,137 @@
+package com.srm.spark.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts changes to in-process state (caches, indexes) to the other
+ * instances behind the load balancer. A component that keeps such state
+ * applies its own change locally, publishes it, and subscribes to the same
+ * topic to apply changes made elsewhere; messages from this instance are
+ * not delivered back to it. Publishing inside a transaction sends after
+ * commit, so peers never see a change that was rolled back.
+ *
+ * Delivery is best effort. When the transport reports it may have missed
+ * messages, resync handlers run and reload their state from the database.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class ClusterBus implements SmartLifecycle {
+
+    private final ClusterTransport transport;
+    private final ObjectMapper objectMapper;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, List<Consumer<JsonNode>>> subscribers = new ConcurrentHashMap<>();
+    private final List<Runnable> resyncHandlers = new CopyOnWriteArrayList<>();
+    private final Counter sent;
+    private final Counter received;
+    private volatile boolean running;
+
+    public ClusterBus(ClusterTransport transport, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.sent = meterRegistry.counter("spark.cluster.messages", "direction", "sent");
+        this.received = meterRegistry.counter("spark.cluster.messages", "direction", "received");
+    }
+
+    /** Sends the payload, as JSON, to the topic's subscribers on every other instance. */
+    public void publish(String topic, Object payload) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(topic, payload);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                send(topic, payload);
+            }
+        });
+    }
+
+    public <T> void subscribe(String topic, Class<T> type, Consumer<T> handler) {
+        subscribers.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>())
+                .add(node -> handler.accept(objectMapper.convertValue(node, type)));
+    }
+
+    /** Runs the handler when messages may have been lost, e.g. after the transport reconnected. */
+    public void onResync(Runnable handler) {
+        resyncHandlers.add(handler);
+    }
+
+    private void send(String topic, Object payload) {
+        if (!running) {
+            return;
+        }
+        try {
+            ObjectNode message = objectMapper.createObjectNode()
+                    .put("origin", instanceId)
+                    .put("topic", topic)
+                    .set("payload", objectMapper.valueToTree(payload));
+            transport.send(objectMapper.writeValueAsString(message));
+            sent.increment();
+        } catch (Exception e) {
+            // Peers heal through their TTLs or the next resync; the local change has already committed
+            log.warn("Failed to broadcast {} change: {}", topic, e.getMessage());
+        }
+    }
+
+    private void receive(String raw) {
+        try {
+            JsonNode message = objectMapper.readTree(raw);
+            if (instanceId.equals(message.path("origin").asText())) {
+                return;
+            }
+            received.increment();
+            for (Consumer<JsonNode> handler : subscribers.getOrDefault(message.path("topic").asText(), List.of())) {
+                handler.accept(message.get("payload"));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to apply cluster message {}", raw, e);
+        }
+    }
+
+    private void resync() {
+        log.info("Cluster transport reported a gap, reloading shared state");
+        resyncHandlers.forEach(Runnable::run);
+    }
+
+    @Override
+    public void start() {
+        transport.start(this::receive, this::resync);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        transport.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Listen before the indexes load (phase 0), so a change committed during their load is not missed
+        return -1;
+    }
+}
@@ -0,0 +1,19 @@
+package com.srm.spark.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link ClusterBus} messages between instances. Delivery is
+ * at-most-once and unordered across senders; a transport that may have
+ * missed messages (e.g. after reconnecting) says so through onGap, and
+ * subscribers then rebuild from the database.
+ */
+public interface ClusterTransport {
+
+    /** Sends to every instance, this one included. Called outside any transaction. */
+    void send(String message);
+
+    void start(Consumer<String> receiver, Runnable onGap);
+
+    void stop();
+}
@@ -0,0 +1,53 @@
+package com.srm.spark.cluster;
+
+import com.srm.spark.model.Page;
+import com.srm.spark.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Keeps the second-level cache coherent across instances. After a write
+ * to a cached entity, peers evict that entity and the natural-id
+ * resolutions of its class, so their next read goes to the database
+ * instead of waiting for the region TTL. User and Page are the cached
+ * entities.
+ */
+@Component
+@Lazy(false)
+public class EntityCacheSync {
+
+    private static final String TOPIC = "entity-evict";
+
+    private final ClusterBus clusterBus;
+    private final Cache cache;
+    private final Map<String, Class<?>> entities;
+
+    public record Eviction(String entity, String id) {
+    }
+
+    public EntityCacheSync(ClusterBus clusterBus, EntityManagerFactory entityManagerFactory) {
+        this.clusterBus = clusterBus;
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.entities = Map.of(User.class.getSimpleName(), User.class, Page.class.getSimpleName(), Page.class);
+        clusterBus.subscribe(TOPIC, Eviction.class, this::evictLocally);
+        clusterBus.onResync(cache::evictAllRegions);
+    }
+
+    /** Evicts the entity on the other instances once the current transaction commits. */
+    public void evict(Class<?> entity, String id) {
+        clusterBus.publish(TOPIC, new Eviction(entity.getSimpleName(), id));
+    }
+
+    private void evictLocally(Eviction eviction) {
+        Class<?> entity = entities.get(eviction.entity());
+        if (entity != null) {
+            cache.evictEntityData(entity, eviction.id());
+            cache.evictNaturalIdData(entity);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.srm.spark.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * Embedded broker: delivers messages to every instance started in the same
+ * JVM. The default for a single instance, where the bus then only talks to
+ * itself, and for tests that run several application contexts side by side.
+ */
+@Component
+@ConditionalOnProperty(name = "spark.cluster.transport", havingValue = "local", matchIfMissing = true)
+public class LocalClusterTransport implements ClusterTransport {
+
+    private static final Set<Consumer<String>> RECEIVERS = new CopyOnWriteArraySet<>();
+
+    private Consumer<String> receiver;
+
+    @Override
+    public void send(String message) {
+        RECEIVERS.forEach(each -> each.accept(message));
+    }
+
+    @Override
+    public void start(Consumer<String> receiver, Runnable onGap) {
+        this.receiver = receiver;
+        RECEIVERS.add(receiver);
+    }
+
+    @Override
+    public void stop() {
+        RECEIVERS.remove(receiver);
+    }
+}
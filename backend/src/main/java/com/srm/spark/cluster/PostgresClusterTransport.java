@@ -0,0 +1,188 @@
+package com.srm.spark.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * PostgreSQL LISTEN/NOTIFY. {@link #send} only queues the message: a sender
+ * thread drains the bounded queue and runs pg_notify on a dedicated
+ * autocommit connection, so committing requests never wait on a database
+ * round trip, a pooled connection or a broken socket. Messages are received
+ * on a second dedicated connection. Both are opened outside the pool, so
+ * neither counts against the pool size or trips leak detection. Either
+ * connection reconnects with backoff on its own thread when it drops. The
+ * sender keeps the message it failed on and retries it. When the queue is
+ * full, new messages are refused (and the bus logs them); when the listener
+ * reconnects it reports a gap, since notifications sent meanwhile are lost.
+ * Payloads are limited to 8000 bytes by PostgreSQL.
+ */
+@Component
+@ConditionalOnProperty(name = "spark.cluster.transport", havingValue = "postgres")
+@Slf4j
+public class PostgresClusterTransport implements ClusterTransport {
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final String channel;
+    private final BlockingQueue<String> outgoing;
+    private Thread listener;
+    private Thread sender;
+    private volatile boolean running;
+    private volatile Connection connection;
+
+    public PostgresClusterTransport(DataSourceProperties dataSourceProperties,
+                                    @Value("${spark.cluster.channel:spark_cluster}") String channel,
+                                    @Value("${spark.cluster.send-queue-capacity:10000}") int sendQueueCapacity) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid channel name: " + channel);
+        }
+        this.dataSourceProperties = dataSourceProperties;
+        this.channel = channel;
+        this.outgoing = new ArrayBlockingQueue<>(sendQueueCapacity);
+    }
+
+    @Override
+    public void send(String message) {
+        if (!outgoing.offer(message)) {
+            throw new IllegalStateException("Cluster send queue is full");
+        }
+    }
+
+    @Override
+    public void start(Consumer<String> receiver, Runnable onGap) {
+        running = true;
+        // Listen before returning, so nothing committed after startup is missed
+        connection = connect();
+        listener = new Thread(() -> listen(receiver, onGap), "cluster-listener");
+        listener.setDaemon(true);
+        listener.start();
+        sender = new Thread(this::sendLoop, "cluster-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeQuietly(connection);
+        if (listener != null) {
+            listener.interrupt();
+        }
+        if (sender != null) {
+            sender.interrupt();
+        }
+    }
+
+    private void sendLoop() {
+        Connection sending = null;
+        String message = null;
+        long backoff = 500;
+        try {
+            while (running) {
+                try {
+                    if (message == null) {
+                        message = outgoing.poll(1, TimeUnit.SECONDS);
+                        if (message == null) {
+                            continue;
+                        }
+                    }
+                    if (sending == null) {
+                        sending = open();
+                    }
+                    try (PreparedStatement statement = sending.prepareStatement("SELECT pg_notify(?, ?)")) {
+                        statement.setString(1, channel);
+                        statement.setString(2, message);
+                        statement.execute();
+                    }
+                    message = null;
+                    backoff = 500;
+                } catch (SQLException e) {
+                    log.warn("Cluster sender connection failed, reconnecting in {} ms: {}", backoff, e.getMessage());
+                    closeQuietly(sending);
+                    sending = null;
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopping; messages still queued are dropped like any other lost notification
+        } finally {
+            closeQuietly(sending);
+        }
+    }
+
+    private void listen(Consumer<String> receiver, Runnable onGap) {
+        long backoff = 500;
+        while (running) {
+            try {
+                if (connection == null) {
+                    connection = connect();
+                    onGap.run();
+                    backoff = 500;
+                }
+                PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications(1000);
+                if (notifications != null) {
+                    for (PGNotification notification : notifications) {
+                        receiver.accept(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster listener connection failed, reconnecting in {} ms: {}", backoff, e.getMessage());
+                closeQuietly(connection);
+                connection = null;
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private Connection connect() {
+        try {
+            Connection listening = open();
+            try (Statement statement = listening.createStatement()) {
+                statement.execute("LISTEN " + channel);
+            }
+            return listening;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot listen on channel " + channel, e);
+        }
+    }
+
+    private Connection open() throws SQLException {
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // already broken
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.srm.spark.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Sizes the Hikari pool from the core count when spark.pool.size-from-cores
+ * is on and no explicit spring.datasource.hikari.maximum-pool-size is given.
+ * Follows the HikariCP guideline of cores * 2 + effective spindles, with
+ * minimumIdle equal to the maximum so the pool stays fixed-size.
+ */
+@Configuration
+@Slf4j
+public class ConnectionPoolConfig {
+
+    static final String EXPLICIT_SIZE = "spring.datasource.hikari.maximum-pool-size";
+
+    @Bean
+    public static BeanPostProcessor hikariPoolSizer(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource
+                        && environment.getProperty("spark.pool.size-from-cores", Boolean.class, false)
+                        && !environment.containsProperty(EXPLICIT_SIZE)) {
+                    int spindles = environment.getProperty("spark.pool.effective-spindles", Integer.class, 1);
+                    int size = poolSize(Runtime.getRuntime().availableProcessors(), spindles);
+                    dataSource.setMaximumPoolSize(size);
+                    dataSource.setMinimumIdle(size);
+                    log.info("Connection pool {} sized to {} connections", dataSource.getPoolName(), size);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static int poolSize(int cores, int spindles) {
+        return cores * 2 + Math.max(spindles, 0);
+    }
+}
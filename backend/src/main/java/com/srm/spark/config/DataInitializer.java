@@ -7,8 +7,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 @Component
 @RequiredArgsConstructor
@@ -19,7 +21,8 @@ public class DataInitializer implements CommandLineRunner {
 
     @Override
     public void run(String... args) {
-        if (pageRepository.count() == 0) {
+        Set<String> existingNames = pageRepository.findAllNames();
+        if (existingNames.isEmpty()) {
             log.info("Initializing default pages...");
             
             List<PageData> defaultPages = Arrays.asList(
@@ -31,15 +34,17 @@ public class DataInitializer implements CommandLineRunner {
                 new PageData("General", "General Doubts - Any other academic or non-academic questions")
             );
 
+            List<Page> pages = new ArrayList<>();
             for (PageData pageData : defaultPages) {
-                if (!pageRepository.existsByName(pageData.name)) {
+                if (!existingNames.contains(pageData.name)) {
                     Page page = new Page();
                     page.setName(pageData.name);
                     page.setDescription(pageData.description);
-                    pageRepository.save(page);
-                    log.info("Created page: {}", pageData.name);
+                    pages.add(page);
                 }
             }
+            pageRepository.saveAll(pages);
+            pages.forEach(page -> log.info("Created page: {}", page.getName()));
             
             log.info("Database initialized with default pages!");
         } else {
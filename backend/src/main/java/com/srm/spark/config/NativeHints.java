@@ -0,0 +1,126 @@
+package com.srm.spark.config;
+
+import com.srm.spark.cluster.EntityCacheSync;
+import com.srm.spark.dto.AttachmentResponse;
+import com.srm.spark.dto.AuthResponse;
+import com.srm.spark.dto.DeleteJobResponse;
+import com.srm.spark.dto.LoginRequest;
+import com.srm.spark.dto.NotificationResponse;
+import com.srm.spark.dto.OutboxEventResponse;
+import com.srm.spark.dto.PageResponse;
+import com.srm.spark.dto.QuestionRequest;
+import com.srm.spark.dto.QuestionResponse;
+import com.srm.spark.dto.QuestionSummaryResponse;
+import com.srm.spark.dto.QuestionThreadResponse;
+import com.srm.spark.dto.RefreshRequest;
+import com.srm.spark.dto.RegisterRequest;
+import com.srm.spark.dto.ReplyRequest;
+import com.srm.spark.dto.ReplyResponse;
+import com.srm.spark.dto.TagResponse;
+import com.srm.spark.exception.ErrorResponse;
+import com.srm.spark.model.ArchivedQuestion;
+import com.srm.spark.model.Attachment;
+import com.srm.spark.model.Notification;
+import com.srm.spark.model.OutboxCheckpoint;
+import com.srm.spark.model.OutboxEvent;
+import com.srm.spark.model.Page;
+import com.srm.spark.model.Question;
+import com.srm.spark.model.RefreshToken;
+import com.srm.spark.model.Reply;
+import com.srm.spark.model.RevokedToken;
+import com.srm.spark.model.Tag;
+import com.srm.spark.model.User;
+import com.srm.spark.model.Vote;
+import com.srm.spark.service.TagIndex;
+import com.srm.spark.service.UnreadCountCache;
+import com.srm.spark.repository.QuestionRepository;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.data.projection.TargetAware;
+
+import java.util.List;
+
+/**
+ * Reachability metadata for the native image (mvn -Pnative package). Spring
+ * AOT already covers beans, repositories and Spring Security; this adds what
+ * it cannot infer: DTOs serialized outside controller signatures, entities
+ * and constructor projections Hibernate instantiates reflectively, Spring
+ * Data projection proxies and the jjwt implementation classes that jjwt-api
+ * loads by name.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHints.Registrar.class)
+@RegisterReflectionForBinding({
+        AuthResponse.class, LoginRequest.class, RegisterRequest.class, RefreshRequest.class,
+        PageResponse.class, DeleteJobResponse.class,
+        QuestionRequest.class, QuestionResponse.class, QuestionSummaryResponse.class, QuestionThreadResponse.class,
+        ReplyRequest.class, ReplyResponse.class,
+        OutboxEventResponse.class, NotificationResponse.class, AttachmentResponse.class, TagResponse.class,
+        ErrorResponse.class,
+        EntityCacheSync.Eviction.class, TagIndex.Change.class, UnreadCountCache.Deltas.class
+})
+public class NativeHints {
+
+    static final List<Class<?>> ENTITIES = List.of(
+            User.class, Page.class, Question.class, Reply.class, OutboxEvent.class, OutboxCheckpoint.class,
+            Notification.class, Vote.class, Attachment.class, Tag.class, RefreshToken.class, RevokedToken.class,
+            ArchivedQuestion.class);
+
+    static final List<String> JJWT_IMPLEMENTATIONS = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+            "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+            "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+            "io.jsonwebtoken.impl.security.KeysBridge",
+            "io.jsonwebtoken.impl.security.JwksBridge",
+            "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyOperations",
+            "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardCurves",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    static class Registrar implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (Class<?> entity : ENTITIES) {
+                hints.reflection().registerType(entity,
+                        MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_DECLARED_METHODS);
+            }
+            hints.reflection().registerType(QuestionSummaryResponse.class,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            hints.reflection().registerType(NotificationResponse.class,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+            hints.proxies().registerJdkProxy(QuestionRepository.Stamp.class,
+                    TargetAware.class, SpringProxy.class, DecoratingProxy.class);
+            hints.proxies().registerJdkProxy(QuestionRepository.Stamp.class,
+                    SpringProxy.class, Advised.class, DecoratingProxy.class);
+            hints.proxies().registerJdkProxy(QuestionRepository.PageCount.class,
+                    TargetAware.class, SpringProxy.class, DecoratingProxy.class);
+            hints.proxies().registerJdkProxy(QuestionRepository.PageCount.class,
+                    SpringProxy.class, Advised.class, DecoratingProxy.class);
+
+            for (String type : JJWT_IMPLEMENTATIONS) {
+                hints.reflection().registerTypeIfPresent(classLoader, type,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+            hints.resources().registerPattern("ehcache.xml");
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.srm.spark.controller;
+
+import com.srm.spark.dto.AttachmentResponse;
+import com.srm.spark.model.Attachment;
+import com.srm.spark.monitoring.QueryBudget;
+import com.srm.spark.security.UserPrincipal;
+import com.srm.spark.service.AttachmentService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/attachments")
+@RequiredArgsConstructor
+public class AttachmentController {
+
+    // Tomcat's sendfile contract: the connector writes the file with FileChannel.transferTo after the servlet returns
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final AttachmentService attachmentService;
+
+    @QueryBudget(4)
+    @PostMapping(value = "/question/{questionId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<AttachmentResponse> uploadToQuestion(
+            @PathVariable String questionId,
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(attachmentService.upload(Attachment.QUESTION, questionId, file, principal));
+    }
+
+    @QueryBudget(4)
+    @PostMapping(value = "/reply/{replyId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<AttachmentResponse> uploadToReply(
+            @PathVariable String replyId,
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(attachmentService.upload(Attachment.REPLY, replyId, file, principal));
+    }
+
+    // One more lookup each for threads that have been archived
+    @QueryBudget(3)
+    @GetMapping("/question/{questionId}")
+    public ResponseEntity<List<AttachmentResponse>> getThreadAttachments(@PathVariable String questionId) {
+        return ResponseEntity.ok(attachmentService.getThreadAttachments(questionId));
+    }
+
+    @QueryBudget(1)
+    @GetMapping("/{id}")
+    public ResponseEntity<?> download(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletRequest request,
+            WebRequest webRequest) {
+        Attachment attachment = attachmentService.getServableAttachment(id);
+        ContentDisposition.Builder disposition = attachment.getContentType().startsWith("image/")
+                ? ContentDisposition.inline() : ContentDisposition.attachment();
+        String fileName = attachment.getFileName();
+        if (StandardCharsets.US_ASCII.newEncoder().canEncode(fileName)) {
+            disposition.filename(fileName);
+        } else {
+            disposition.filename(fileName, StandardCharsets.UTF_8);
+        }
+        return serve(attachmentService.getBlobPath(attachment), "\"" + attachment.getSha256() + "\"",
+                MediaType.parseMediaType(attachment.getContentType()), disposition.build(),
+                range, request, webRequest);
+    }
+
+    @QueryBudget(1)
+    @GetMapping("/{id}/thumbnail")
+    public ResponseEntity<?> thumbnail(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletRequest request,
+            WebRequest webRequest) {
+        Attachment attachment = attachmentService.getServableAttachment(id);
+        Path path = attachmentService.getThumbnailPath(attachment);
+        if (!Files.exists(path)) {
+            throw new RuntimeException("No thumbnail available for attachment " + id);
+        }
+        return serve(path, "\"t" + attachment.getSha256() + "\"", MediaType.IMAGE_JPEG,
+                ContentDisposition.inline().build(), range, request, webRequest);
+    }
+
+    @QueryBudget(2)
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, String>> deleteAttachment(
+            @PathVariable String id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        attachmentService.deleteAttachment(id, principal);
+        return ResponseEntity.ok(Map.of("message", "Attachment deleted successfully"));
+    }
+
+    /**
+     * Blobs never change, but the post they belong to can be deleted or hidden,
+     * so responses are private (never kept by shared caches) and revalidated by
+     * hash after an hour.
+     * Whole-file responses go out through sendfile when the connector supports
+     * it; range requests (and other containers) fall back to Spring's
+     * ResourceRegion handling, which answers 206 with the requested bytes.
+     */
+    private ResponseEntity<?> serve(Path path, String etag, MediaType contentType, ContentDisposition disposition,
+                                    String range, HttpServletRequest request, WebRequest webRequest) {
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        long length;
+        try {
+            length = Files.size(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Attachment file is missing");
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(contentType)
+                .cacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePrivate())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                // Uploaded files are never allowed to run script in our origin
+                .header("Content-Security-Policy", "sandbox; default-src 'none'");
+        if (range == null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return response.contentLength(length).build();
+        }
+        return response.body(new FileSystemResource(path));
+    }
+}
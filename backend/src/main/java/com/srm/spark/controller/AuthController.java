@@ -2,13 +2,20 @@ package com.srm.spark.controller;
 
 import com.srm.spark.dto.AuthResponse;
 import com.srm.spark.dto.LoginRequest;
+import com.srm.spark.dto.RefreshRequest;
 import com.srm.spark.dto.RegisterRequest;
+import com.srm.spark.security.UserPrincipal;
 import com.srm.spark.service.AuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -25,4 +32,31 @@ public class AuthController {
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
         return ResponseEntity.ok(authService.login(request));
     }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        return ResponseEntity.ok(authService.refresh(request));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, String>> logout(
+            @RequestBody(required = false) RefreshRequest request,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7) : null;
+        authService.logout(request == null ? null : request.getRefreshToken(), accessToken);
+        return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/logout-all")
+    public ResponseEntity<Map<String, Integer>> logoutEverywhere(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(Map.of("revokedSessions", authService.logoutEverywhere(principal.getId())));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/users/{userId}/revoke")
+    public ResponseEntity<Map<String, Integer>> revokeUser(@PathVariable String userId) {
+        return ResponseEntity.ok(Map.of("revokedSessions", authService.logoutEverywhere(userId)));
+    }
 }
@@ -0,0 +1,68 @@
+package com.srm.spark.controller;
+
+import com.srm.spark.exception.PreconditionFailedException;
+import com.srm.spark.repository.QuestionRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String ofVersion(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Question tag: the entity version first, so the same value works as an
+     * If-Match precondition, then the reply count, last reply change and score.
+     */
+    static String ofQuestion(QuestionRepository.Stamp stamp) {
+        return "\"" + stamp.getVersion() + "." + stamp.getReplyCount() + "."
+                + Math.max(0, toEpochMillis(stamp.getRepliesModifiedAt())) + "." + stamp.getScore() + "\"";
+    }
+
+    static String ofReplies(QuestionRepository.Stamp stamp) {
+        return "\"r" + stamp.getReplyCount() + "." + Math.max(0, toEpochMillis(stamp.getRepliesModifiedAt())) + "."
+                + stamp.getRepliesScore() + "." + Integer.toHexString(Objects.hashCode(stamp.getAcceptedReplyId())) + "\"";
+    }
+
+    static long lastModified(LocalDateTime... times) {
+        long latest = -1;
+        for (LocalDateTime time : times) {
+            latest = Math.max(latest, toEpochMillis(time));
+        }
+        return latest;
+    }
+
+    /**
+     * Returns the entity version carried by an If-Match header, or null when
+     * the header is absent or is the "*" wildcard.
+     */
+    static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        int separator = value.indexOf('.');
+        if (separator >= 0) {
+            value = value.substring(0, separator);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time == null ? -1 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
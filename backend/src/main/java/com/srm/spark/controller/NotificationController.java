@@ -0,0 +1,56 @@
+package com.srm.spark.controller;
+
+import com.srm.spark.dto.NotificationResponse;
+import com.srm.spark.monitoring.QueryBudget;
+import com.srm.spark.security.UserPrincipal;
+import com.srm.spark.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+public class NotificationController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final NotificationService notificationService;
+
+    @QueryBudget(2)
+    @GetMapping
+    public ResponseEntity<List<NotificationResponse>> getInbox(
+            @RequestParam(defaultValue = "false") boolean unreadOnly,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(notificationService.getInbox(
+                principal, unreadOnly, page, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    @QueryBudget(2)
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Long>> getUnreadCount(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(Map.of("unread", notificationService.getUnreadCount(principal)));
+    }
+
+    @QueryBudget(3)
+    @PutMapping("/{id}/read")
+    public ResponseEntity<Map<String, String>> markRead(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        notificationService.markRead(id, principal);
+        return ResponseEntity.ok(Map.of("message", "Notification marked as read"));
+    }
+
+    @QueryBudget(2)
+    @PutMapping("/read")
+    public ResponseEntity<Map<String, String>> markAllRead(@AuthenticationPrincipal UserPrincipal principal) {
+        notificationService.markAllRead(principal);
+        return ResponseEntity.ok(Map.of("message", "All notifications marked as read"));
+    }
+}
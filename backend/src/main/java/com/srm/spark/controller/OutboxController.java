@@ -0,0 +1,59 @@
+package com.srm.spark.controller;
+
+import com.srm.spark.dto.OutboxEventResponse;
+import com.srm.spark.model.OutboxEvent;
+import com.srm.spark.service.OutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/outbox")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class OutboxController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final OutboxService outboxService;
+
+    @GetMapping
+    public ResponseEntity<List<OutboxEventResponse>> read(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(convert(outboxService.read(after, Math.min(limit, MAX_LIMIT))));
+    }
+
+    @GetMapping("/consumers/{consumer}")
+    public ResponseEntity<Map<String, Object>> poll(
+            @PathVariable String consumer,
+            @RequestParam(defaultValue = "100") int limit) {
+        long checkpoint = outboxService.getCheckpoint(consumer);
+        List<OutboxEventResponse> events = convert(outboxService.read(checkpoint, Math.min(limit, MAX_LIMIT)));
+        return ResponseEntity.ok(Map.of("checkpoint", checkpoint, "events", events));
+    }
+
+    @PutMapping("/consumers/{consumer}/checkpoint")
+    public ResponseEntity<Map<String, Object>> checkpoint(
+            @PathVariable String consumer,
+            @RequestBody Map<String, Long> request) {
+        Long position = request.get("position");
+        if (position == null) {
+            throw new RuntimeException("position is required");
+        }
+        outboxService.checkpoint(consumer, position);
+        return ResponseEntity.ok(Map.of("consumer", consumer, "checkpoint", position));
+    }
+
+    private List<OutboxEventResponse> convert(List<OutboxEvent> events) {
+        return events.stream()
+                .map(e -> new OutboxEventResponse(e.getId(), e.getPosition(), e.getEntityType(), e.getEntityId(),
+                        e.getAction(), e.getPayload(), e.getCreatedAt()))
+                .collect(Collectors.toList());
+    }
+}
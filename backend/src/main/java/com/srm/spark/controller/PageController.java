@@ -1,8 +1,11 @@
 package com.srm.spark.controller;
 
+import com.srm.spark.dto.DeleteJobResponse;
 import com.srm.spark.dto.PageResponse;
+import com.srm.spark.monitoring.QueryBudget;
 import com.srm.spark.service.PageService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +20,7 @@ public class PageController {
 
     private final PageService pageService;
 
+    @QueryBudget(3)
     @GetMapping
     public ResponseEntity<List<PageResponse>> getAllPages() {
         return ResponseEntity.ok(pageService.getAllPages());
@@ -42,8 +46,21 @@ public class PageController {
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Map<String, String>> deletePage(@PathVariable String id) {
-        pageService.deletePage(id);
-        return ResponseEntity.ok(Map.of("message", "Page deleted successfully"));
+    public ResponseEntity<Map<String, Object>> deletePage(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            DeleteJobResponse job = pageService.deletePageAsync(id);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(Map.of("message", "Page deletion started", "job", job));
+        }
+        DeleteJobResponse job = pageService.deletePage(id);
+        return ResponseEntity.ok(Map.of("message", "Page deleted successfully", "job", job));
+    }
+
+    @GetMapping("/delete-jobs/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DeleteJobResponse> getDeleteJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(pageService.getDeleteJob(jobId));
     }
 }
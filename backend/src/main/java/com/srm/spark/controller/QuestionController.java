@@ -1,24 +1,53 @@
 package com.srm.spark.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.srm.spark.dto.QuestionRequest;
 import com.srm.spark.dto.QuestionResponse;
+import com.srm.spark.dto.QuestionThreadResponse;
+import com.srm.spark.model.Vote;
+import com.srm.spark.monitoring.QueryBudget;
+import com.srm.spark.repository.QuestionRepository;
+import com.srm.spark.security.UserPrincipal;
 import com.srm.spark.service.QuestionService;
+import com.srm.spark.service.VoteService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/questions")
 @RequiredArgsConstructor
 public class QuestionController {
 
+    private static final int MAX_PREVIEW_LENGTH = 1000;
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    private static final List<MediaType> FEED_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE);
+
     private final QuestionService questionService;
+    private final VoteService voteService;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
 
+    @QueryBudget(4)
     @GetMapping("/page/{pageId}")
     public ResponseEntity<List<QuestionResponse>> getQuestionsByPage(
             @PathVariable String pageId,
@@ -27,6 +56,7 @@ public class QuestionController {
         return ResponseEntity.ok(questionService.getQuestionsByPage(pageId, page, size));
     }
 
+    @QueryBudget(4)
     @GetMapping("/page/name/{pageName}")
     public ResponseEntity<List<QuestionResponse>> getQuestionsByPageName(
             @PathVariable String pageName,
@@ -35,34 +65,166 @@ public class QuestionController {
         return ResponseEntity.ok(questionService.getQuestionsByPageName(pageName, page, size));
     }
 
+    @GetMapping("/feed")
+    public ResponseEntity<StreamingResponseBody> getFeed(
+            @RequestParam(required = false) String pageId,
+            @RequestParam(required = false) String pageName,
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(defaultValue = "all") String match,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "200") int preview,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept)
+            throws HttpMediaTypeNotAcceptableException {
+        int previewLength = Math.max(0, Math.min(preview, MAX_PREVIEW_LENGTH));
+        boolean matchAllTags = parseMatch(match);
+        MediaType mediaType = negotiateFeedType(accept);
+        ObjectMapper mapper = mediaType.equals(MediaType.APPLICATION_CBOR) ? cborConverter.getObjectMapper()
+                : mediaType.equals(SMILE) ? smileConverter.getObjectMapper()
+                : objectMapper;
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = mapper.getFactory().createGenerator(out);
+            generator.writeStartArray();
+            questionService.streamFeed(pageId, pageName, tags, matchAllTags, page, size, previewLength, row -> {
+                try {
+                    mapper.writeValue(generator, row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(body);
+    }
+
+    @QueryBudget(3)
+    @GetMapping("/batch")
+    public ResponseEntity<Map<String, QuestionThreadResponse>> getThreads(@RequestParam List<String> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("At most " + MAX_BATCH_SIZE + " question ids can be fetched at once");
+        }
+        return ResponseEntity.ok(questionService.getThreads(ids));
+    }
+
+    @QueryBudget(4)
     @GetMapping("/{id}")
-    public ResponseEntity<QuestionResponse> getQuestionById(@PathVariable String id) {
-        return ResponseEntity.ok(questionService.getQuestionById(id));
+    public ResponseEntity<QuestionResponse> getQuestionById(@PathVariable String id, WebRequest webRequest) {
+        Optional<QuestionRepository.Stamp> found = questionService.findQuestionStamp(id);
+        if (found.isEmpty()) {
+            // Archived threads are served from cold storage, without validators
+            return ResponseEntity.ok(questionService.getQuestionById(id));
+        }
+        QuestionRepository.Stamp stamp = found.get();
+        String etag = ETags.ofQuestion(stamp);
+        long lastModified = ETags.lastModified(stamp.getUpdatedAt(), stamp.getRepliesModifiedAt());
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(questionService.getQuestionById(id));
     }
 
+    // Includes resolving tags, and reading back the ones created on first use
+    @QueryBudget(6)
     @PostMapping
     public ResponseEntity<QuestionResponse> createQuestion(
             @Valid @RequestBody QuestionRequest request,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        return ResponseEntity.ok(questionService.createQuestion(request, userEmail));
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(questionService.createQuestion(request, principal));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<QuestionResponse> updateQuestion(
             @PathVariable String id,
             @Valid @RequestBody QuestionRequest request,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        return ResponseEntity.ok(questionService.updateQuestion(id, request, userEmail));
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        QuestionResponse response = questionService.updateQuestion(
+                id, request, principal, ETags.parseVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(ETags.ofVersion(response.getVersion()))
+                .body(response);
     }
 
+    @QueryBudget(3)
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteQuestion(
             @PathVariable String id,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        questionService.deleteQuestion(id, userEmail);
+            @AuthenticationPrincipal UserPrincipal principal) {
+        questionService.deleteQuestion(id, principal);
         return ResponseEntity.ok(Map.of("message", "Question deleted successfully"));
     }
+
+    @QueryBudget(2)
+    @PutMapping("/{id}/vote")
+    public ResponseEntity<Map<String, Boolean>> vote(
+            @PathVariable String id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        voteService.vote(Vote.QUESTION, id, principal);
+        return ResponseEntity.ok(Map.of("voted", true));
+    }
+
+    @QueryBudget(1)
+    @DeleteMapping("/{id}/vote")
+    public ResponseEntity<Map<String, Boolean>> unvote(
+            @PathVariable String id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        voteService.unvote(Vote.QUESTION, id, principal);
+        return ResponseEntity.ok(Map.of("voted", false));
+    }
+
+    @PutMapping("/{id}/accepted-reply/{replyId}")
+    public ResponseEntity<QuestionResponse> acceptReply(
+            @PathVariable String id,
+            @PathVariable String replyId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        QuestionResponse response = questionService.setAcceptedReply(id, replyId, principal);
+        return ResponseEntity.ok()
+                .eTag(ETags.ofVersion(response.getVersion()))
+                .body(response);
+    }
+
+    @DeleteMapping("/{id}/accepted-reply")
+    public ResponseEntity<QuestionResponse> clearAcceptedReply(
+            @PathVariable String id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        QuestionResponse response = questionService.setAcceptedReply(id, null, principal);
+        return ResponseEntity.ok()
+                .eTag(ETags.ofVersion(response.getVersion()))
+                .body(response);
+    }
+
+    private static boolean parseMatch(String match) {
+        return switch (match) {
+            case "all" -> true;
+            case "any" -> false;
+            default -> throw new RuntimeException("Unknown tag match '" + match + "', use all or any");
+        };
+    }
+
+    // JSON only when the client states no preference, nothing when it accepts none of the feed formats
+    private MediaType negotiateFeedType(String accept) throws HttpMediaTypeNotAcceptableException {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType type : accepted) {
+            if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                return MediaType.APPLICATION_CBOR;
+            }
+            if (type.equalsTypeAndSubtype(SMILE)) {
+                return SMILE;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return MediaType.APPLICATION_JSON;
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(FEED_TYPES);
+    }
 }
@@ -2,15 +2,23 @@ package com.srm.spark.controller;
 
 import com.srm.spark.dto.ReplyRequest;
 import com.srm.spark.dto.ReplyResponse;
+import com.srm.spark.model.Vote;
+import com.srm.spark.monitoring.QueryBudget;
+import com.srm.spark.repository.QuestionRepository;
+import com.srm.spark.security.UserPrincipal;
 import com.srm.spark.service.ReplyService;
+import com.srm.spark.service.VoteService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/replies")
@@ -18,36 +26,85 @@ import java.util.Map;
 public class ReplyController {
 
     private final ReplyService replyService;
+    private final VoteService voteService;
 
+    @QueryBudget(3)
     @GetMapping("/question/{questionId}")
-    public ResponseEntity<List<ReplyResponse>> getRepliesByQuestion(@PathVariable String questionId) {
-        return ResponseEntity.ok(replyService.getRepliesByQuestion(questionId));
+    public ResponseEntity<List<ReplyResponse>> getRepliesByQuestion(
+            @PathVariable String questionId,
+            @RequestParam(defaultValue = "oldest") String sort,
+            WebRequest webRequest) {
+        boolean byScore = parseSort(sort);
+        Optional<QuestionRepository.Stamp> stamp = replyService.getRepliesStamp(questionId);
+        if (stamp.isEmpty()) {
+            // Not in the hot tier: the thread may have been archived
+            return ResponseEntity.ok(replyService.getArchivedReplies(questionId, byScore));
+        }
+        String etag = ETags.ofReplies(stamp.get());
+        long lastModified = ETags.lastModified(stamp.get().getRepliesModifiedAt());
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(replyService.getRepliesByQuestion(questionId, byScore));
     }
 
+    @QueryBudget(5)
     @PostMapping("/question/{questionId}")
     public ResponseEntity<ReplyResponse> createReply(
             @PathVariable String questionId,
             @Valid @RequestBody ReplyRequest request,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        return ResponseEntity.ok(replyService.createReply(questionId, request, userEmail));
+            @AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(replyService.createReply(questionId, request, principal));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<ReplyResponse> updateReply(
             @PathVariable String id,
             @Valid @RequestBody ReplyRequest request,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        return ResponseEntity.ok(replyService.updateReply(id, request, userEmail));
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        ReplyResponse response = replyService.updateReply(
+                id, request, principal, ETags.parseVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(ETags.ofVersion(response.getVersion()))
+                .body(response);
     }
 
+    @QueryBudget(3)
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteReply(
             @PathVariable String id,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        replyService.deleteReply(id, userEmail);
+            @AuthenticationPrincipal UserPrincipal principal) {
+        replyService.deleteReply(id, principal);
         return ResponseEntity.ok(Map.of("message", "Reply deleted successfully"));
     }
+
+    @QueryBudget(2)
+    @PutMapping("/{id}/vote")
+    public ResponseEntity<Map<String, Boolean>> vote(
+            @PathVariable String id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        voteService.vote(Vote.REPLY, id, principal);
+        return ResponseEntity.ok(Map.of("voted", true));
+    }
+
+    @QueryBudget(1)
+    @DeleteMapping("/{id}/vote")
+    public ResponseEntity<Map<String, Boolean>> unvote(
+            @PathVariable String id,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        voteService.unvote(Vote.REPLY, id, principal);
+        return ResponseEntity.ok(Map.of("voted", false));
+    }
+
+    private static boolean parseSort(String sort) {
+        return switch (sort) {
+            case "oldest" -> false;
+            case "score" -> true;
+            default -> throw new RuntimeException("Unknown sort: " + sort + " (use oldest or score)");
+        };
+    }
 }
@@ -0,0 +1,29 @@
+package com.srm.spark.controller;
+
+import com.srm.spark.dto.TagResponse;
+import com.srm.spark.monitoring.QueryBudget;
+import com.srm.spark.service.TagService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/tags")
+@RequiredArgsConstructor
+public class TagController {
+
+    private static final int MAX_LIMIT = 200;
+
+    private final TagService tagService;
+
+    // Served entirely from the in-memory tag index
+    @QueryBudget(0)
+    @GetMapping
+    public ResponseEntity<List<TagResponse>> getPopularTags(
+            @RequestParam(required = false) String pageId,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(tagService.getPopularTags(pageId, Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+}
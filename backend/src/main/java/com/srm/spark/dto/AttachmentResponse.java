@@ -0,0 +1,23 @@
+package com.srm.spark.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentResponse {
+    private String id;
+    private String targetType;
+    private String targetId;
+    private String userId;
+    private String fileName;
+    private String contentType;
+    private long size;
+    private String url;
+    private String thumbnailUrl; // null for types without thumbnails; the image may lag the upload briefly
+    private LocalDateTime createdAt;
+}
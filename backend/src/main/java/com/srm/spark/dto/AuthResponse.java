@@ -8,13 +8,19 @@ import lombok.Data;
 public class AuthResponse {
     private String token;
     private String type = "Bearer";
+    // Seconds until token expires; exchange refreshToken at /api/auth/refresh for a new pair
+    private long expiresIn;
+    private String refreshToken;
     private String id;
     private String name;
     private String email;
     private String role;
     
-    public AuthResponse(String token, String id, String name, String email, String role) {
+    public AuthResponse(String token, long expiresIn, String refreshToken,
+                        String id, String name, String email, String role) {
         this.token = token;
+        this.expiresIn = expiresIn;
+        this.refreshToken = refreshToken;
         this.id = id;
         this.name = name;
         this.email = email;
@@ -0,0 +1,20 @@
+package com.srm.spark.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+public class DeleteJobResponse {
+    private String jobId;
+    private String targetId;
+    private volatile String status; // RUNNING, COMPLETED or FAILED
+    private volatile long questionsDeleted;
+    private volatile long repliesDeleted;
+    private volatile int batchesCompleted;
+    private LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+}
@@ -0,0 +1,20 @@
+package com.srm.spark.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationResponse {
+    private Long id;
+    private String questionId;
+    private String questionTitle;
+    private int unreadCount;
+    private String lastReplyId;
+    private String lastReplierName;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,22 @@
+package com.srm.spark.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEventResponse {
+    private Long id;
+    private Long position;
+    private String entityType;
+    private String entityId;
+    private String action;
+    @JsonRawValue
+    private String payload;
+    private LocalDateTime createdAt;
+}
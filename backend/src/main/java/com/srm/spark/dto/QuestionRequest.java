@@ -4,6 +4,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class QuestionRequest {
     
@@ -17,4 +19,8 @@ public class QuestionRequest {
     
     @NotBlank(message = "Page ID is required")
     private String pageId;
+
+    // Null leaves the tags of an existing question unchanged; an empty list removes them
+    @Size(max = 5, message = "A question can have at most 5 tags")
+    private List<String> tags;
 }
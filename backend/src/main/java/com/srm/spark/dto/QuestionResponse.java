@@ -14,11 +14,16 @@ public class QuestionResponse {
     private String id;
     private String title;
     private String description;
+    private String descriptionHtml;
     private String userId;
     private String userName;
     private String pageId;
     private String pageName;
+    private List<String> tags;
     private int replyCount;
+    private long score;
+    private String acceptedReplyId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 }
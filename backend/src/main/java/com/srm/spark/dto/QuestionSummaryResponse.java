@@ -0,0 +1,36 @@
+package com.srm.spark.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Feed row: description is cut to a preview. Timestamps serialize like every
+ * other response so the feed and /api/questions/{id} agree.
+ * Clients fetch the full question from /api/questions/{id}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionSummaryResponse {
+    private String id;
+    private String title;
+    private String descriptionPreview;
+    private boolean truncated;
+    private String userId;
+    private String userName;
+    private String pageId;
+    private String pageName;
+    private long replyCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public QuestionSummaryResponse(String id, String title, String descriptionPreview, boolean truncated,
+                                   String userId, String userName, String pageId, String pageName,
+                                   Long replyCount, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, title, descriptionPreview, truncated, userId, userName, pageId, pageName,
+                replyCount.longValue(), createdAt, updatedAt);
+    }
+}
@@ -0,0 +1,15 @@
+package com.srm.spark.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionThreadResponse {
+    private QuestionResponse question;
+    private List<ReplyResponse> replies;
+}
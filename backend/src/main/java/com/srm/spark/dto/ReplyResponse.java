@@ -12,9 +12,13 @@ import java.time.LocalDateTime;
 public class ReplyResponse {
     private String id;
     private String content;
+    private String contentHtml;
     private String questionId;
     private String userId;
     private String userName;
+    private long score;
+    private boolean accepted;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 }
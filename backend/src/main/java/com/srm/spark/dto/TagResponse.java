@@ -0,0 +1,13 @@
+package com.srm.spark.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TagResponse {
+    private String name;
+    private int questionCount;
+}
@@ -0,0 +1,27 @@
+package com.srm.spark.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published inside the transaction that creates or updates a page, question
+ * or reply. The payload is the response DTO as seen by API clients, or null
+ * for DELETED. A deleted question takes its replies with it; no REPLY event
+ * is published for them.
+ */
+@Data
+@AllArgsConstructor
+public class EntityChangedEvent {
+    public static final String PAGE = "PAGE";
+    public static final String QUESTION = "QUESTION";
+    public static final String REPLY = "REPLY";
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    private String entityType;
+    private String entityId;
+    private String action;
+    private Object payload;
+}
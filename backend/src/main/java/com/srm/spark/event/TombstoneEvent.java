@@ -0,0 +1,22 @@
+package com.srm.spark.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a question or reply is soft-deleted. The row stays in the
+ * database until the purger removes it; listeners should drop the entity from
+ * any cache or index they keep.
+ */
+@Data
+@AllArgsConstructor
+public class TombstoneEvent {
+    public static final String QUESTION = "QUESTION";
+    public static final String REPLY = "REPLY";
+
+    private String entityType;
+    private String entityId;
+    private LocalDateTime deletedAt;
+}
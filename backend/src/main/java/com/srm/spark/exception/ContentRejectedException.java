@@ -0,0 +1,7 @@
+package com.srm.spark.exception;
+
+public class ContentRejectedException extends RuntimeException {
+    public ContentRejectedException(String message) {
+        super(message);
+    }
+}
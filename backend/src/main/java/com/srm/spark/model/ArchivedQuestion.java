@@ -0,0 +1,43 @@
+package com.srm.spark.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cold tier: one row per archived thread, holding the question and its
+ * replies as they were when archived, as gzip-compressed JSON. Rows are
+ * written by {@code QuestionArchiver} and only ever read by id.
+ */
+@Entity
+@Table(name = "question_archive", indexes = @Index(name = "idx_question_archive_page", columnList = "pageId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedQuestion {
+
+    // The archived question's own id
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String pageId;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    @JdbcTypeCode(SqlTypes.LONG32VARBINARY)
+    @Column(nullable = false)
+    private byte[] payload;
+}
@@ -0,0 +1,55 @@
+package com.srm.spark.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A file attached to a question or reply. The bytes live in the
+ * content-addressed store under their SHA-256, so identical uploads share one
+ * file; this row only carries the metadata.
+ */
+@Entity
+@Table(name = "attachments", indexes = {
+        @Index(name = "idx_attachments_target", columnList = "targetType, targetId"),
+        @Index(name = "idx_attachments_sha256", columnList = "sha256")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Attachment {
+
+    public static final String QUESTION = "QUESTION";
+    public static final String REPLY = "REPLY";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(nullable = false, length = 16)
+    private String targetType;
+
+    @Column(nullable = false)
+    private String targetId;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
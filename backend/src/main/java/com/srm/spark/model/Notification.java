@@ -0,0 +1,48 @@
+package com.srm.spark.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per (question author, question): new replies bump unreadCount and
+ * the last-reply fields instead of adding rows, so a busy thread costs its
+ * author a single row.
+ */
+@Entity
+@Table(name = "notifications",
+        uniqueConstraints = @UniqueConstraint(name = "uk_notifications_user_question", columnNames = {"userId", "questionId"}),
+        indexes = {
+                @Index(name = "idx_notifications_user_updated", columnList = "userId, updatedAt"),
+                @Index(name = "idx_notifications_question", columnList = "questionId")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Notification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String userId; // recipient: the question's author
+
+    @Column(nullable = false)
+    private String questionId;
+
+    @Column(nullable = false)
+    private int unreadCount; // replies since the recipient last read it
+
+    @Column(nullable = false)
+    private String lastReplyId;
+
+    @Column(nullable = false)
+    private String lastReplierName;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,26 @@
+package com.srm.spark.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxCheckpoint {
+
+    @Id
+    private String consumer;
+
+    // Checkpoints used to hold event ids; events from that time kept their id as position
+    @Column(name = "last_event_id", nullable = false)
+    private Long lastPosition;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,42 @@
+package com.srm.spark.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_created_at", columnList = "createdAt"),
+        @Index(name = "idx_outbox_position", columnList = "stream_position", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Order in the change stream, assigned after commit by OutboxService.sequence; null until then
+    @Column(name = "stream_position")
+    private Long position;
+
+    @Column(nullable = false)
+    private String entityType; // PAGE, QUESTION or REPLY
+
+    @Column(nullable = false)
+    private String entityId;
+
+    @Column(nullable = false)
+    private String action; // CREATED, UPDATED or DELETED
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,30 @@
+package com.srm.spark.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A topic label shared by questions across pages. Names are stored
+ * normalized (lower case, no leading '#'), so "#Java" and "java" are one tag.
+ */
+@Entity
+@Table(name = "tags")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Tag {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 32)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,42 @@
+package com.srm.spark.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One upvote by one user on a question or reply. The unique key makes
+ * voting idempotent; the per-target score columns are maintained from these
+ * rows by {@code VoteTallyService}.
+ */
+@Entity
+@Table(name = "votes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_votes_user_target", columnNames = {"userId", "targetType", "targetId"}),
+        indexes = @Index(name = "idx_votes_target", columnList = "targetType, targetId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Vote {
+
+    public static final String QUESTION = "QUESTION";
+    public static final String REPLY = "REPLY";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(nullable = false, length = 16)
+    private String targetType;
+
+    @Column(nullable = false)
+    private String targetId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
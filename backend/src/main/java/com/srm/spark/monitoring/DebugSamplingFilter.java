@@ -0,0 +1,54 @@
+package com.srm.spark.monitoring;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logback turbo filter that lets through one in {@code rate} DEBUG/TRACE
+ * events from the configured logger prefixes, so chatty frameworks can stay
+ * at DEBUG without flooding the appender. Level checks (isDebugEnabled) and
+ * events the logger would drop anyway are left alone. Configured in
+ * logback-spring.xml from spark.logging.sampled-loggers and
+ * spark.logging.debug-sample-rate.
+ */
+public class DebugSamplingFilter extends TurboFilter {
+
+    private final AtomicLong seen = new AtomicLong();
+    private String[] prefixes = new String[0];
+    private int rate = 1;
+
+    public void setLoggers(String loggers) {
+        prefixes = Arrays.stream(loggers.split(","))
+                .map(String::trim)
+                .filter(prefix -> !prefix.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    public void setRate(int rate) {
+        this.rate = Math.max(1, rate);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (rate == 1 || format == null || level.levelInt > Level.DEBUG_INT
+                || level.levelInt < logger.getEffectiveLevel().levelInt || !sampled(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return seen.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean sampled(String name) {
+        for (String prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,102 @@
+package com.srm.spark.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements each request issues (including the security
+ * filter's user lookup) and records them per endpoint as spark.http.queries.
+ * Requests over budget are logged and counted in
+ * spark.http.query.budget.exceeded; with spark.query-budget.fail-on-exceed
+ * they fail instead, which is meant for tests. Statements run after an
+ * async hand-off (streamed feeds) happen on another thread and are not
+ * counted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+@Slf4j
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spark.query-budget.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spark.query-budget.default-max:10}")
+    private int defaultMax;
+
+    @Value("${spark.query-budget.repeat-threshold:5}")
+    private int repeatThreshold;
+
+    @Value("${spark.query-budget.fail-on-exceed:false}")
+    private boolean failOnExceed;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCount.start();
+        QueryCount.Scope scope;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope = QueryCount.stop();
+        }
+
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null || scope == null) {
+            return;
+        }
+        String method = request.getMethod();
+        String endpoint = method + " " + pattern;
+        int total = scope.getTotal();
+        meterRegistry.summary("spark.http.queries", "method", method, "uri", pattern).record(total);
+
+        scope.repeated(repeatThreshold).forEach((sql, count) ->
+                log.warn("Possible N+1 on {}: {} executions of [{}]", endpoint, count, sql));
+
+        int budget = budgetFor(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+        if (total > budget) {
+            meterRegistry.counter("spark.http.query.budget.exceeded", "method", method, "uri", pattern).increment();
+            log.warn("{} issued {} SQL statements, budget is {}", endpoint, total, budget);
+            if (failOnExceed) {
+                throw new IllegalStateException(endpoint + " issued " + total + " SQL statements, budget is " + budget);
+            }
+        } else {
+            log.debug("{} issued {} SQL statements", endpoint, total);
+        }
+    }
+
+    private int budgetFor(Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            QueryBudget budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), QueryBudget.class);
+            if (budget == null) {
+                budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), QueryBudget.class);
+            }
+            if (budget != null) {
+                return budget.value();
+            }
+        }
+        return defaultMax;
+    }
+}
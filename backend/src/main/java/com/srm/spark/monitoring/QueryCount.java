@@ -0,0 +1,94 @@
+package com.srm.spark.monitoring;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-thread SQL statement counter fed by {@link QueryCountInspector}.
+ * {@link QueryBudgetFilter} opens a scope for every HTTP request; tests can
+ * open their own with {@link #start()} / {@link #stop()}, or pin an
+ * endpoint after a MockMvc call with {@link #assertLastRequestAtMost(int)}.
+ */
+public final class QueryCount {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Scope> LAST = new ThreadLocal<>();
+
+    private QueryCount() {
+    }
+
+    public static Scope start() {
+        Scope scope = new Scope();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /** Closes the current scope and remembers it as this thread's last one. */
+    public static Scope stop() {
+        Scope scope = CURRENT.get();
+        CURRENT.remove();
+        if (scope != null) {
+            LAST.set(scope);
+        }
+        return scope;
+    }
+
+    public static int current() {
+        Scope scope = CURRENT.get();
+        return scope == null ? 0 : scope.getTotal();
+    }
+
+    public static Scope lastRequest() {
+        return LAST.get();
+    }
+
+    public static void assertLastRequestAtMost(int max) {
+        Scope last = LAST.get();
+        if (last == null) {
+            throw new AssertionError("No SQL statement scope has been closed on this thread");
+        }
+        if (last.getTotal() > max) {
+            throw new AssertionError("Expected at most " + max + " SQL statements but got " + last.getTotal()
+                    + ": " + last.getStatements());
+        }
+    }
+
+    static void record(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+    }
+
+    public static final class Scope {
+
+        private int total;
+        private final Map<String, Integer> statements = new HashMap<>();
+
+        void record(String sql) {
+            total++;
+            statements.merge(sql, 1, Integer::sum);
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        /** Executions per distinct SQL string. */
+        public Map<String, Integer> getStatements() {
+            return statements;
+        }
+
+        /** Statements executed at least {@code threshold} times, the usual N+1 signature. */
+        public Map<String, Integer> repeated(int threshold) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            statements.forEach((sql, count) -> {
+                if (count >= threshold) {
+                    repeated.put(sql, count);
+                }
+            });
+            return repeated;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.srm.spark.repository;
+
+import com.srm.spark.model.ArchivedQuestion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchivedQuestionRepository extends JpaRepository<ArchivedQuestion, String> {
+}
@@ -0,0 +1,66 @@
+package com.srm.spark.repository;
+
+import com.srm.spark.model.Attachment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttachmentRepository extends JpaRepository<Attachment, String> {
+
+    /** Attachments of a question and of its live replies, oldest first. */
+    @Query("SELECT a FROM Attachment a WHERE (a.targetType = 'QUESTION' AND a.targetId = :questionId) "
+            + "OR (a.targetType = 'REPLY' AND a.targetId IN (SELECT r.id FROM Reply r WHERE r.question.id = :questionId)) "
+            + "ORDER BY a.createdAt ASC")
+    List<Attachment> findByQuestionThread(String questionId);
+
+    /** Attachments of the given questions and replies, oldest first; used for archived threads. */
+    List<Attachment> findByTargetIdInOrderByCreatedAtAsc(Collection<String> targetIds);
+
+    long countByTargetTypeAndTargetId(String targetType, String targetId);
+
+    /**
+     * The attachment, unless its question or reply (or the reply's question) is
+     * soft-deleted, which includes posts hidden by moderation. A target with no
+     * row at all has been archived, since purges delete their attachments.
+     */
+    @Query(value = "SELECT a.* FROM attachments a WHERE a.id = :id "
+            + "AND NOT EXISTS (SELECT 1 FROM replies r WHERE a.target_type = 'REPLY' AND r.id = a.target_id "
+            + "AND r.deleted = true) "
+            + "AND NOT EXISTS (SELECT 1 FROM questions q WHERE q.deleted = true "
+            + "AND (a.target_type = 'QUESTION' AND q.id = a.target_id "
+            + "OR a.target_type = 'REPLY' AND q.id = (SELECT r.question_id FROM replies r WHERE r.id = a.target_id)))",
+            nativeQuery = true)
+    Optional<Attachment> findServableById(String id);
+
+    @Query("SELECT DISTINCT a.sha256 FROM Attachment a WHERE a.sha256 IN :hashes")
+    List<String> findReferencedHashes(Collection<String> hashes);
+
+    // Purges run inside the caller's transaction, before the questions' replies are deleted.
+    // Native statements declare their table so Hibernate only invalidates its regions, not the whole 2nd-level cache.
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "attachments"))
+    @Query(value = "DELETE FROM attachments WHERE target_type = 'QUESTION' AND target_id IN (:questionIds) "
+            + "OR target_type = 'REPLY' AND target_id IN (SELECT id FROM replies WHERE question_id IN (:questionIds))",
+            nativeQuery = true)
+    int deleteByQuestionIdIn(Collection<String> questionIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "attachments"))
+    @Query(value = "DELETE FROM attachments WHERE target_type = 'REPLY' AND target_id IN (:replyIds)", nativeQuery = true)
+    int deleteByReplyIdIn(Collection<String> replyIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "attachments"))
+    @Query(value = "DELETE FROM attachments WHERE target_id IN (:targetIds)", nativeQuery = true)
+    int deleteByTargetIdIn(Collection<String> targetIds);
+}
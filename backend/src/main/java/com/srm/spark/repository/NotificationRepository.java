@@ -0,0 +1,47 @@
+package com.srm.spark.repository;
+
+import com.srm.spark.dto.NotificationResponse;
+import com.srm.spark.model.Notification;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    // Joining Question hides notifications for soft-deleted questions
+
+    @Query("SELECT new com.srm.spark.dto.NotificationResponse(n.id, n.questionId, q.title, n.unreadCount, "
+            + "n.lastReplyId, n.lastReplierName, n.updatedAt) "
+            + "FROM Notification n JOIN Question q ON q.id = n.questionId "
+            + "WHERE n.userId = :userId AND (:unreadOnly = false OR n.unreadCount > 0) "
+            + "ORDER BY n.updatedAt DESC")
+    List<NotificationResponse> findInbox(String userId, boolean unreadOnly, Pageable pageable);
+
+    @Query("SELECT COUNT(n) FROM Notification n JOIN Question q ON q.id = n.questionId "
+            + "WHERE n.userId = :userId AND n.unreadCount > 0")
+    long countUnread(String userId);
+
+    boolean existsByIdAndUserId(Long id, String userId);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.unreadCount = 0 WHERE n.id = :id AND n.userId = :userId AND n.unreadCount > 0")
+    int markRead(Long id, String userId);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.unreadCount = 0 WHERE n.userId = :userId AND n.unreadCount > 0")
+    int markAllRead(String userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "notifications"))
+    @Query(value = "DELETE FROM notifications WHERE question_id IN (:questionIds)", nativeQuery = true)
+    int deleteByQuestionIdIn(Collection<String> questionIds);
+}
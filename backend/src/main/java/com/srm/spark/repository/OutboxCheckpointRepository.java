@@ -0,0 +1,18 @@
+package com.srm.spark.repository;
+
+import com.srm.spark.model.OutboxCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OutboxCheckpointRepository extends JpaRepository<OutboxCheckpoint, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM OutboxCheckpoint c WHERE c.consumer = :consumer")
+    Optional<OutboxCheckpoint> findForUpdate(String consumer);
+}
@@ -0,0 +1,32 @@
+package com.srm.spark.repository;
+
+import com.srm.spark.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e FROM OutboxEvent e WHERE e.position > :afterPosition ORDER BY e.position ASC")
+    List<OutboxEvent> findAfter(long afterPosition, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(e.position), 0) FROM OutboxEvent e")
+    long findMaxPosition();
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.position IS NULL ORDER BY e.id ASC")
+    List<Long> findUnsequencedIds(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.position = e.id WHERE e.position IS NULL")
+    int adoptIdsAsPositions();
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.createdAt < :cutoff")
+    int deleteOlderThan(LocalDateTime cutoff);
+}
@@ -2,12 +2,20 @@ package com.srm.spark.repository;
 
 import com.srm.spark.model.Page;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface PageRepository extends JpaRepository<Page, String> {
-    Optional<Page> findByName(String name);
+public interface PageRepository extends JpaRepository<Page, String>, PageRepositoryCustom {
     Boolean existsByName(String name);
+
+    @Query("SELECT p.name FROM Page p")
+    Set<String> findAllNames();
+
+    @Modifying
+    @Query("DELETE FROM Page p WHERE p.id = :id")
+    int deletePageById(String id);
 }
@@ -0,0 +1,11 @@
+package com.srm.spark.repository;
+
+import com.srm.spark.model.Page;
+
+import java.util.Optional;
+
+public interface PageRepositoryCustom {
+
+    /** Loads by the name natural id, served from the natural-id cache when possible. */
+    Optional<Page> findByName(String name);
+}
@@ -0,0 +1,21 @@
+package com.srm.spark.repository;
+
+import com.srm.spark.model.Page;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@RequiredArgsConstructor
+class PageRepositoryCustomImpl implements PageRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Page> findByName(String name) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Page.class).loadOptional(name);
+    }
+}
@@ -1,13 +1,22 @@
 package com.srm.spark.repository;
 
+import com.srm.spark.dto.QuestionSummaryResponse;
 import com.srm.spark.model.Question;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, String> {
@@ -20,4 +29,109 @@ public interface QuestionRepository extends JpaRepository<Question, String> {
     
     @Query("SELECT q FROM Question q WHERE q.page.name = :pageName ORDER BY q.createdAt DESC")
     Page<Question> findByPageName(String pageName, Pageable pageable);
+
+    @Query("SELECT q FROM Question q JOIN FETCH q.user JOIN FETCH q.page WHERE q.id IN :ids")
+    List<Question> findAllWithUserAndPageByIdIn(Collection<String> ids);
+
+    interface PageCount {
+        String getPageId();
+        Long getTotal();
+    }
+
+    @Query("SELECT q.page.id AS pageId, COUNT(q) AS total FROM Question q GROUP BY q.page.id")
+    List<PageCount> countGroupByPage();
+
+    @Query("SELECT COUNT(q) FROM Question q WHERE q.page.id = :pageId")
+    long countByPageId(String pageId);
+
+    @Query("SELECT q.user.id FROM Question q WHERE q.id = :id")
+    Optional<String> findAuthorIdById(String id);
+
+    interface Stamp {
+        Long getVersion();
+        LocalDateTime getUpdatedAt();
+        Long getScore();
+        Long getReplyCount();
+        LocalDateTime getRepliesModifiedAt();
+        Long getRepliesScore();
+        String getAcceptedReplyId();
+    }
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "100"))
+    @Query("SELECT new com.srm.spark.dto.QuestionSummaryResponse(q.id, q.title, "
+            + "SUBSTRING(q.description, 1, :previewLength), "
+            + "CASE WHEN LENGTH(q.description) > :previewLength THEN true ELSE false END, "
+            + "u.id, u.name, p.id, p.name, "
+            + "(SELECT COUNT(r) FROM Reply r WHERE r.question = q), q.createdAt, q.updatedAt) "
+            + "FROM Question q JOIN q.user u JOIN q.page p "
+            + "WHERE (:pageId IS NULL OR p.id = :pageId) AND (:pageName IS NULL OR p.name = :pageName) "
+            + "ORDER BY q.createdAt DESC")
+    Stream<QuestionSummaryResponse> streamFeed(String pageId, String pageName, int previewLength, Pageable pageable);
+
+    // Same rows as streamFeed for an already chosen page of ids, e.g. from the tag index
+    @Query("SELECT new com.srm.spark.dto.QuestionSummaryResponse(q.id, q.title, "
+            + "SUBSTRING(q.description, 1, :previewLength), "
+            + "CASE WHEN LENGTH(q.description) > :previewLength THEN true ELSE false END, "
+            + "u.id, u.name, p.id, p.name, "
+            + "(SELECT COUNT(r) FROM Reply r WHERE r.question = q), q.createdAt, q.updatedAt) "
+            + "FROM Question q JOIN q.user u JOIN q.page p "
+            + "WHERE q.id IN :ids "
+            + "ORDER BY q.createdAt DESC")
+    Stream<QuestionSummaryResponse> streamFeedByIdIn(Collection<String> ids, int previewLength);
+
+    /**
+     * Validator inputs for conditional GETs, read without loading the entity
+     * graph. Soft-deleted replies still count towards repliesModifiedAt through
+     * their deleted_at, so a delete changes the stamp. Scores are flushed
+     * without touching updated_at, so they are part of the stamp themselves.
+     */
+    @Query(value = "SELECT q.version AS version, q.updated_at AS updatedAt, q.score AS score, "
+            + "q.accepted_reply_id AS acceptedReplyId, "
+            + "(SELECT COUNT(*) FROM replies r WHERE r.question_id = q.id AND r.deleted = false) AS replyCount, "
+            + "(SELECT MAX(GREATEST(r.updated_at, COALESCE(r.deleted_at, r.updated_at))) "
+            + "FROM replies r WHERE r.question_id = q.id) AS repliesModifiedAt, "
+            + "(SELECT COALESCE(SUM(r.score), 0) FROM replies r WHERE r.question_id = q.id AND r.deleted = false) "
+            + "AS repliesScore "
+            + "FROM questions q WHERE q.id = :id AND q.deleted = false", nativeQuery = true)
+    Optional<Stamp> findStampById(String id);
+
+    /** Soft-deletes in one statement if the caller owns the row or is an admin; returns 0 otherwise. */
+    @Modifying
+    @Query("UPDATE Question q SET q.deleted = true, q.deletedAt = :deletedAt "
+            + "WHERE q.id = :id AND q.deleted = false AND (:admin = true OR q.user.id = :userId)")
+    int softDeleteById(String id, String userId, boolean admin, LocalDateTime deletedAt);
+
+    /** Clears the accepted marker when that reply goes away. */
+    @Modifying
+    @Query("UPDATE Question q SET q.acceptedReplyId = NULL, q.version = q.version + 1, q.updatedAt = :updatedAt "
+            + "WHERE q.acceptedReplyId = :replyId")
+    int clearAcceptedReply(String replyId, LocalDateTime updatedAt);
+
+    // Native queries below also see soft-deleted rows, which the entity restriction hides.
+    // Deletes declare their table so Hibernate only invalidates its regions, not the whole 2nd-level cache.
+
+    @Query(value = "SELECT id FROM questions WHERE page_id = :pageId", nativeQuery = true)
+    List<String> findIdsByPageId(String pageId, Pageable pageable);
+
+    @Query(value = "SELECT id FROM questions WHERE deleted = true AND deleted_at < :cutoff", nativeQuery = true)
+    List<String> findTombstonedIds(LocalDateTime cutoff, Pageable pageable);
+
+    /** Live questions with no edit, reply or reply edit since the cutoff, oldest first. */
+    @Query(value = "SELECT q.id FROM questions q WHERE q.deleted = false AND q.updated_at < :cutoff "
+            + "AND NOT EXISTS (SELECT 1 FROM replies r WHERE r.question_id = q.id AND r.updated_at >= :cutoff) "
+            + "ORDER BY q.created_at", nativeQuery = true)
+    List<String> findArchivableIds(LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * Locks the live questions among the ids until the transaction ends. On
+     * PostgreSQL this also holds off reply inserts, whose foreign key check
+     * needs a share lock on the question row.
+     */
+    @Query(value = "SELECT id FROM questions WHERE id IN (:ids) AND deleted = false FOR UPDATE", nativeQuery = true)
+    List<String> lockByIdIn(Collection<String> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "questions"))
+    @Query(value = "DELETE FROM questions WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIdIn(Collection<String> ids);
 }
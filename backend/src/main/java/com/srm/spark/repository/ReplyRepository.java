@@ -1,18 +1,69 @@
 package com.srm.spark.repository;
 
 import com.srm.spark.model.Reply;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ReplyRepository extends JpaRepository<Reply, String> {
     
-    @Query("SELECT r FROM Reply r WHERE r.question.id = :questionId ORDER BY r.createdAt ASC")
+    @Query("SELECT r FROM Reply r JOIN FETCH r.question q WHERE q.id = :questionId AND q.deleted = false "
+            + "ORDER BY r.createdAt ASC")
     List<Reply> findByQuestionId(String questionId);
+
+    /** The accepted reply first, then by score, ties in creation order. */
+    @Query("SELECT r FROM Reply r JOIN FETCH r.question q WHERE q.id = :questionId AND q.deleted = false "
+            + "ORDER BY CASE WHEN r.id = q.acceptedReplyId THEN 0 ELSE 1 END, r.score DESC, r.createdAt ASC")
+    List<Reply> findByQuestionIdOrderByScore(String questionId);
+
+    @Query("SELECT r.user.id FROM Reply r WHERE r.id = :id AND r.question.deleted = false")
+    Optional<String> findAuthorIdById(String id);
+
+    @Query("SELECT r.question.id FROM Reply r WHERE r.id = :id AND r.question.deleted = false")
+    Optional<String> findQuestionIdById(String id);
     
     @Query("SELECT r FROM Reply r WHERE r.user.id = :userId ORDER BY r.createdAt DESC")
     List<Reply> findByUserId(String userId);
+
+    @Query("SELECT r FROM Reply r JOIN FETCH r.user JOIN FETCH r.question WHERE r.question.id IN :questionIds "
+            + "ORDER BY r.createdAt ASC")
+    List<Reply> findAllWithUserByQuestionIdIn(Collection<String> questionIds);
+
+    /** Soft-deletes in one statement if the caller owns the row or is an admin; returns 0 otherwise. */
+    @Modifying
+    @Query("UPDATE Reply r SET r.deleted = true, r.deletedAt = :deletedAt "
+            + "WHERE r.id = :id AND r.deleted = false AND (:admin = true OR r.user.id = :userId)")
+    int softDeleteById(String id, String userId, boolean admin, LocalDateTime deletedAt);
+
+    // Native queries below also see soft-deleted rows, which the entity restriction hides.
+    // Deletes declare their table so Hibernate only invalidates its regions, not the whole 2nd-level cache.
+
+    @Query(value = "SELECT id FROM replies WHERE deleted = true AND deleted_at < :cutoff", nativeQuery = true)
+    List<String> findTombstonedIds(LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "replies"))
+    @Query(value = "DELETE FROM replies WHERE question_id IN (:questionIds)", nativeQuery = true)
+    int deleteByQuestionIdIn(Collection<String> questionIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "replies"))
+    @Query(value = "DELETE FROM replies WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIdIn(Collection<String> ids);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "replies"))
+    @Query(value = "DELETE FROM replies WHERE deleted = true AND question_id IN (:questionIds)", nativeQuery = true)
+    int deleteTombstonedByQuestionIdIn(Collection<String> questionIds);
 }
@@ -0,0 +1,25 @@
+package com.srm.spark.repository;
+
+import com.srm.spark.model.Tag;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TagRepository extends JpaRepository<Tag, Long> {
+
+    List<Tag> findByNameIn(Collection<String> names);
+
+    // Runs inside the caller's purge transaction, before the questions themselves are deleted
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "question_tags"))
+    @Query(value = "DELETE FROM question_tags WHERE question_id IN (:questionIds)", nativeQuery = true)
+    int deleteByQuestionIdIn(Collection<String> questionIds);
+}
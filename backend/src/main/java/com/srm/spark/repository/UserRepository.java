@@ -4,10 +4,7 @@ import com.srm.spark.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
 @Repository
-public interface UserRepository extends JpaRepository<User, String> {
-    Optional<User> findByEmail(String email);
+public interface UserRepository extends JpaRepository<User, String>, UserRepositoryCustom {
     Boolean existsByEmail(String email);
 }
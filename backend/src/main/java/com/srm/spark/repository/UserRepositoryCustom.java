@@ -0,0 +1,11 @@
+package com.srm.spark.repository;
+
+import com.srm.spark.model.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    /** Loads by the email natural id, served from the natural-id cache when possible. */
+    Optional<User> findByEmail(String email);
+}
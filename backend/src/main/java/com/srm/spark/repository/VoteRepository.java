@@ -0,0 +1,49 @@
+package com.srm.spark.repository;
+
+import com.srm.spark.model.Vote;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface VoteRepository extends JpaRepository<Vote, Long> {
+
+    /** Returns 1 if the vote was recorded, 0 if the user had already voted. */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "votes"))
+    @Query(value = "INSERT INTO votes (user_id, target_type, target_id, created_at) "
+            + "SELECT :userId, :targetType, :targetId, :createdAt WHERE NOT EXISTS "
+            + "(SELECT 1 FROM votes WHERE user_id = :userId AND target_type = :targetType AND target_id = :targetId)",
+            nativeQuery = true)
+    int insertIfAbsent(String userId, String targetType, String targetId, LocalDateTime createdAt);
+
+    /** Returns 1 if a vote was removed, 0 if there was none. */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Vote v WHERE v.userId = :userId AND v.targetType = :targetType AND v.targetId = :targetId")
+    int deleteVote(String userId, String targetType, String targetId);
+
+    // Purges run inside the caller's transaction, before the questions' replies are deleted.
+    // Native statements declare their table so Hibernate only invalidates its regions, not the whole 2nd-level cache.
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "votes"))
+    @Query(value = "DELETE FROM votes WHERE target_type = 'QUESTION' AND target_id IN (:questionIds) "
+            + "OR target_type = 'REPLY' AND target_id IN (SELECT id FROM replies WHERE question_id IN (:questionIds))",
+            nativeQuery = true)
+    int deleteByQuestionIdIn(Collection<String> questionIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "votes"))
+    @Query(value = "DELETE FROM votes WHERE target_type = 'REPLY' AND target_id IN (:replyIds)", nativeQuery = true)
+    int deleteByReplyIdIn(Collection<String> replyIds);
+}
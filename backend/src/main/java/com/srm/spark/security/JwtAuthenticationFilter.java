@@ -1,47 +1,61 @@
 package com.srm.spark.security;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srm.spark.exception.ErrorResponse;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationList tokenRevocationList;
+    private final ObjectMapper objectMapper;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
+        Claims claims = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
             try {
-                username = jwtUtils.extractUsername(token);
+                claims = jwtUtils.parseClaims(authHeader.substring(7));
             } catch (Exception e) {
-                logger.error("JWT Token extraction failed: " + e.getMessage());
+                log.debug("Rejected bearer token: {}", e.getMessage());
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        // Parsed once; the revocation check is in memory unless the Bloom filter reports a hit
+        if (claims != null && tokenRevocationList.isRevoked(claims.getId())) {
+            log.debug("Rejected revoked bearer token {}", claims.getId());
+            claims = null;
+        }
+
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserPrincipal userDetails = (UserPrincipal) userDetailsService.loadUserByUsername(claims.getSubject());
             
-            if (jwtUtils.validateToken(token, userDetails)) {
+            if (jwtUtils.isValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -49,6 +63,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
         }
 
+        // A presented but unusable token is a 401, so clients know to refresh instead of carrying on
+        // anonymously; /api/auth stays reachable for refresh and logout with an expired token
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null
+                && !request.getRequestURI().startsWith(request.getContextPath() + "/api/auth/")) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                    HttpStatus.UNAUTHORIZED.value(), "Access token is invalid or expired", LocalDateTime.now()));
+            return;
+        }
+
         filterChain.doFilter(request, response);
     }
 }
@@ -10,9 +10,12 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
@@ -37,6 +40,15 @@ public class JwtUtils {
         return claimsResolver.apply(claims);
     }
 
+    /** Verifies the signature and expiry and returns the claims; throws for any invalid token. */
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
+    public long getExpirationMillis() {
+        return expiration;
+    }
+
     private Claims extractAllClaims(String token) {
     // Use parser() here for broader jjwt compatibility across versions
     // Try to use a Key object if supported, otherwise fall back to raw bytes
@@ -68,6 +80,19 @@ public class JwtUtils {
         return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
     }
 
+    /**
+     * Checks already parsed claims against the user: the subject must match
+     * and the token must not predate the user's last "log out everywhere".
+     */
+    public boolean isValid(Claims claims, UserPrincipal user) {
+        if (!user.getUsername().equals(claims.getSubject()) || claims.getExpiration().before(new Date())) {
+            return false;
+        }
+        LocalDateTime validAfter = user.getTokensValidAfter();
+        return validAfter == null || claims.getIssuedAt() != null
+                && !claims.getIssuedAt().toInstant().isBefore(validAfter.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
     public String generateToken(String username) {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, username);
@@ -76,6 +101,7 @@ public class JwtUtils {
     private String createToken(Map<String, Object> claims, String username) {
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
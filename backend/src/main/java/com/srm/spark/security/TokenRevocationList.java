@@ -0,0 +1,139 @@
+package com.srm.spark.security;
+
+import com.srm.spark.cluster.ClusterBus;
+import com.srm.spark.model.RevokedToken;
+import com.srm.spark.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Revoked access tokens, by jti. The revoked_tokens table is the exact
+ * store; in front of it sits a Bloom filter of the same jtis, so the check
+ * that runs on every authenticated request is a few memory reads and only a
+ * filter hit (a revoked token, or a ~1% false positive) costs a primary key
+ * lookup. Revocations made by other instances arrive over the
+ * {@link ClusterBus} within milliseconds; polling the table every
+ * sync-millis covers messages the bus lost. The filter is rebuilt from the
+ * unexpired rows when expired ones are purged, which keeps it from filling up.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class TokenRevocationList implements SmartLifecycle {
+
+    // Overlap between polls, so a row committed just after the previous poll read its clock is not missed
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private static final String TOPIC = "revoked-tokens";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final ClusterBus clusterBus;
+    private final Counter revokedHits;
+    private final Counter falsePositives;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime syncedUpTo = LocalDateTime.now();
+    private volatile boolean running;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository, ClusterBus clusterBus,
+                               MeterRegistry meterRegistry,
+                               @Value("${spark.auth.revocation.expected-insertions:100000}") long expectedInsertions,
+                               @Value("${spark.auth.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.revokedHits = meterRegistry.counter("spark.auth.revocation.lookups", "result", "revoked");
+        this.falsePositives = meterRegistry.counter("spark.auth.revocation.lookups", "result", "false-positive");
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.clusterBus = clusterBus;
+        clusterBus.subscribe(TOPIC, String.class, jti -> filter.put(jti));
+    }
+
+    public void revoke(String jti, String userId, LocalDateTime expiresAt) {
+        if (jti == null || expiresAt.isBefore(LocalDateTime.now())) {
+            return;
+        }
+        if (!revokedTokenRepository.existsById(jti)) {
+            revokedTokenRepository.save(new RevokedToken(jti, userId, expiresAt, LocalDateTime.now()));
+        }
+        filter.put(jti);
+        clusterBus.publish(TOPIC, jti);
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        if (revokedTokenRepository.existsById(jti)) {
+            revokedHits.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /** Adds revocations committed since the last poll, including ones made by other instances. */
+    @Scheduled(fixedDelayString = "${spark.auth.revocation.sync-millis:5000}")
+    public synchronized void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        BloomFilter current = filter;
+        revokedTokenRepository.findJtisRevokedSince(syncedUpTo.minus(SYNC_OVERLAP)).forEach(current::put);
+        syncedUpTo = now;
+    }
+
+    /** Deletes rows whose tokens have expired and rebuilds the filter from the rest. */
+    @Scheduled(fixedDelayString = "${spark.auth.revocation.purge-millis:3600000}",
+            initialDelayString = "${spark.auth.revocation.purge-millis:3600000}")
+    public synchronized void purge() {
+        int purged = revokedTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (purged > 0) {
+            rebuild();
+            log.info("Purged {} expired token revocations", purged);
+        }
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Load before the web server so a revoked token is never accepted after a restart
+        return 0;
+    }
+
+    private synchronized void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> jtis = revokedTokenRepository.findUnexpiredJtis(now);
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, jtis.size() * 2L), falsePositiveRate);
+        jtis.forEach(rebuilt::put);
+        filter = rebuilt;
+        // Revocations that landed in the old filter while the rows were read come back in with the next poll
+        syncedUpTo = now;
+        sync();
+        log.debug("Loaded {} token revocations into a {} KB filter", jtis.size(), rebuilt.sizeInBytes() / 1024);
+    }
+}
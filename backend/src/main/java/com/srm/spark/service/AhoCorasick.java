@@ -0,0 +1,141 @@
+package com.srm.spark.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Immutable Aho-Corasick automaton over lowercase terms. One pass over the
+ * text finds every occurrence of every term, so the cost is linear in the
+ * text no matter how long the term list grows. Only whole-word matches
+ * count: a term must not be preceded or followed by a letter or digit, so
+ * "ass" does not match "class". Safe to share between threads.
+ */
+final class AhoCorasick {
+
+    // Per state: transition labels (sorted) and their targets
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] failure;
+    // Length of the term ending in this state, 0 if none
+    private final int[] termLength;
+    // Nearest state on the failure chain that ends a term, -1 if none
+    private final int[] outputLink;
+    private final String[] terms;
+
+    AhoCorasick(Collection<String> terms) {
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<String> termAt = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        termAt.add(null);
+        for (String raw : terms) {
+            String term = raw.strip().toLowerCase(Locale.ROOT);
+            if (term.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < term.length(); i++) {
+                Integer next = trie.get(state).get(term.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    termAt.add(null);
+                    trie.get(state).put(term.charAt(i), next);
+                }
+                state = next;
+            }
+            termAt.set(state, term);
+        }
+
+        int size = trie.size();
+        labels = new char[size][];
+        targets = new int[size][];
+        failure = new int[size];
+        termLength = new int[size];
+        outputLink = new int[size];
+        this.terms = termAt.toArray(new String[0]);
+        for (int state = 0; state < size; state++) {
+            TreeMap<Character, Integer> edges = trie.get(state);
+            labels[state] = new char[edges.size()];
+            targets[state] = new int[edges.size()];
+            int i = 0;
+            for (var edge : edges.entrySet()) {
+                labels[state][i] = edge.getKey();
+                targets[state][i++] = edge.getValue();
+            }
+            termLength[state] = termAt.get(state) == null ? 0 : termAt.get(state).length();
+        }
+
+        // Breadth-first, so a state's failure target is always finished before the state itself
+        Arrays.fill(outputLink, -1);
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < labels[state].length; i++) {
+                int child = targets[state][i];
+                int fallback = failure[state];
+                int next;
+                while ((next = step(fallback, labels[state][i])) < 0 && fallback != 0) {
+                    fallback = failure[fallback];
+                }
+                failure[child] = next < 0 || next == child ? 0 : next;
+                outputLink[child] = termLength[failure[child]] > 0 ? failure[child] : outputLink[failure[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return labels[0].length == 0;
+    }
+
+    /** The first whole-word term found in the text, or null. */
+    String findFirst(CharSequence text) {
+        List<String> found = find(text, 1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /** Up to limit whole-word occurrences, in the order they end in the text; a term found twice is listed twice. */
+    List<String> find(CharSequence text, int limit) {
+        List<String> found = new ArrayList<>();
+        if (isEmpty()) {
+            return found;
+        }
+        int state = 0;
+        for (int end = 0; end < text.length(); end++) {
+            char c = Character.toLowerCase(text.charAt(end));
+            int next;
+            while ((next = step(state, c)) < 0 && state != 0) {
+                state = failure[state];
+            }
+            state = Math.max(next, 0);
+            for (int out = termLength[state] > 0 ? state : outputLink[state]; out >= 0; out = outputLink[out]) {
+                int start = end - termLength[out] + 1;
+                if (isBoundary(text, start - 1) && isBoundary(text, end + 1)) {
+                    found.add(terms[out]);
+                    if (found.size() >= limit) {
+                        return found;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private int step(int state, char c) {
+        int i = Arrays.binarySearch(labels[state], c);
+        return i < 0 ? -1 : targets[state][i];
+    }
+
+    private static boolean isBoundary(CharSequence text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+}
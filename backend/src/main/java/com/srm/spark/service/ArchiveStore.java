@@ -0,0 +1,137 @@
+package com.srm.spark.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srm.spark.dto.QuestionResponse;
+import com.srm.spark.dto.QuestionThreadResponse;
+import com.srm.spark.model.ArchivedQuestion;
+import com.srm.spark.repository.ArchivedQuestionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for whole threads. Each archived question is one
+ * question_archive row whose payload is the thread as gzip-compressed JSON,
+ * so a read is a single primary key lookup and nothing about an archived
+ * thread stays in the hot tables, their indexes or the caches in front of
+ * them. Archived threads are read-only.
+ */
+@Component
+public class ArchiveStore {
+
+    private final ArchivedQuestionRepository archivedQuestionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter reads;
+
+    public ArchiveStore(ArchivedQuestionRepository archivedQuestionRepository, JdbcTemplate jdbcTemplate,
+                        ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.archivedQuestionRepository = archivedQuestionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.reads = meterRegistry.counter("spark.archive.reads");
+    }
+
+    public Optional<QuestionThreadResponse> findThread(String questionId) {
+        return archivedQuestionRepository.findById(questionId).map(this::decode);
+    }
+
+    public Map<String, QuestionThreadResponse> findThreads(Collection<String> questionIds) {
+        Map<String, QuestionThreadResponse> threads = new HashMap<>();
+        archivedQuestionRepository.findAllById(questionIds)
+                .forEach(archived -> threads.put(archived.getId(), decode(archived)));
+        return threads;
+    }
+
+    /** Writes the threads in one batch. Must run inside the transaction that deletes them from the hot tables. */
+    public void store(Collection<QuestionThreadResponse> threads) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(threads.size());
+        for (QuestionThreadResponse thread : threads) {
+            QuestionResponse question = thread.getQuestion();
+            rows.add(new Object[] {question.getId(), question.getPageId(), question.getUserId(),
+                    Timestamp.valueOf(question.getCreatedAt()), now, encode(thread)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO question_archive (id, page_id, user_id, created_at, archived_at, payload) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    /** Question and reply ids of an archived thread, the targets its attachments may hang off. */
+    public List<String> findThreadTargetIds(String questionId) {
+        return findThread(questionId).map(ArchiveStore::targetIds).orElse(List.of());
+    }
+
+    public record DeletedBatch(List<String> questionIds, List<String> targetIds) {
+    }
+
+    /**
+     * Deletes up to limit archived threads of a page and returns their
+     * question ids and question plus reply ids, so the caller can drop rows
+     * that hang off them. Must run inside the caller's transaction.
+     */
+    public DeletedBatch deleteBatchByPageId(String pageId, int limit) {
+        List<String> questionIds = new ArrayList<>();
+        List<String> targetIds = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, payload FROM question_archive WHERE page_id = ? FETCH FIRST " + limit + " ROWS ONLY",
+                row -> {
+                    questionIds.add(row.getString(1));
+                    targetIds.addAll(targetIds(decode(row.getBytes(2))));
+                }, pageId);
+        if (!questionIds.isEmpty()) {
+            archivedQuestionRepository.deleteAllByIdInBatch(questionIds);
+        }
+        return new DeletedBatch(questionIds, targetIds);
+    }
+
+    private QuestionThreadResponse decode(ArchivedQuestion archived) {
+        reads.increment();
+        return decode(archived.getPayload());
+    }
+
+    private static List<String> targetIds(QuestionThreadResponse thread) {
+        List<String> ids = new ArrayList<>(thread.getReplies().size() + 1);
+        ids.add(thread.getQuestion().getId());
+        thread.getReplies().forEach(reply -> ids.add(reply.getId()));
+        return ids;
+    }
+
+    private byte[] encode(QuestionThreadResponse thread) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, thread);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private QuestionThreadResponse decode(byte[] payload) {
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            QuestionThreadResponse thread = objectMapper.readValue(gzip, QuestionThreadResponse.class);
+            if (thread.getReplies() == null) {
+                thread.setReplies(List.of());
+            }
+            return thread;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.srm.spark.service;
+
+import com.srm.spark.dto.AttachmentResponse;
+import com.srm.spark.model.Attachment;
+import com.srm.spark.repository.AttachmentRepository;
+import com.srm.spark.repository.QuestionRepository;
+import com.srm.spark.repository.ReplyRepository;
+import com.srm.spark.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Attachment metadata lives in the database, the bytes in
+ * {@link AttachmentStore}. Uploads are streamed to the store before the row
+ * is inserted, so no transaction or connection is held while the file is
+ * being received. Deleting an attachment only removes its row; blobs nobody
+ * references any more are swept by {@link #sweepOrphanedFiles()}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttachmentService {
+
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    private final AttachmentRepository attachmentRepository;
+    private final QuestionRepository questionRepository;
+    private final ReplyRepository replyRepository;
+    private final AttachmentStore attachmentStore;
+    private final ThumbnailService thumbnailService;
+    private final ArchiveStore archiveStore;
+
+    @Value("${spark.attachments.max-per-target:10}")
+    private int maxPerTarget;
+
+    @Value("${spark.attachments.orphan-grace-minutes:60}")
+    private long orphanGraceMinutes;
+
+    public AttachmentResponse upload(String targetType, String targetId, MultipartFile file, UserPrincipal principal) {
+        String label = Attachment.QUESTION.equals(targetType) ? "question" : "reply";
+        Optional<String> authorId = Attachment.QUESTION.equals(targetType)
+                ? questionRepository.findAuthorIdById(targetId)
+                : replyRepository.findAuthorIdById(targetId);
+        if (authorId.isEmpty()) {
+            throw new RuntimeException(Character.toUpperCase(label.charAt(0)) + label.substring(1)
+                    + " not found with id: " + targetId);
+        }
+        if (!authorId.get().equals(principal.getId())) {
+            throw new RuntimeException("You can only attach files to your own " + label);
+        }
+        if (attachmentRepository.countByTargetTypeAndTargetId(targetType, targetId) >= maxPerTarget) {
+            throw new RuntimeException("A " + label + " can have at most " + maxPerTarget + " attachments");
+        }
+        if (file.isEmpty()) {
+            throw new RuntimeException("Attachment is empty");
+        }
+
+        AttachmentStore.StoredBlob blob;
+        try (InputStream in = file.getInputStream()) {
+            blob = attachmentStore.store(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store attachment", e);
+        }
+
+        Attachment attachment = new Attachment(null, targetType, targetId, principal.getId(), blob.sha256(),
+                cleanFileName(file.getOriginalFilename()), blob.contentType(), blob.size(), LocalDateTime.now());
+        Attachment saved = attachmentRepository.save(attachment);
+        thumbnailService.generate(blob.sha256(), blob.contentType());
+        return convertToResponse(saved);
+    }
+
+    public List<AttachmentResponse> getThreadAttachments(String questionId) {
+        List<Attachment> attachments = attachmentRepository.findByQuestionThread(questionId);
+        if (attachments.isEmpty()) {
+            // Archived threads keep their attachment rows, but their replies are no longer in the hot tables
+            List<String> targetIds = archiveStore.findThreadTargetIds(questionId);
+            if (!targetIds.isEmpty()) {
+                attachments = attachmentRepository.findByTargetIdInOrderByCreatedAtAsc(targetIds);
+            }
+        }
+        return attachments.stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+
+    public Attachment getAttachment(String id) {
+        return attachmentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Attachment not found with id: " + id));
+    }
+
+    /** The attachment for download; one whose question or reply is deleted or hidden is not found. */
+    public Attachment getServableAttachment(String id) {
+        return attachmentRepository.findServableById(id)
+                .orElseThrow(() -> new RuntimeException("Attachment not found with id: " + id));
+    }
+
+    public Path getBlobPath(Attachment attachment) {
+        return attachmentStore.blobPath(attachment.getSha256());
+    }
+
+    public Path getThumbnailPath(Attachment attachment) {
+        return attachmentStore.thumbnailPath(attachment.getSha256());
+    }
+
+    public void deleteAttachment(String id, UserPrincipal principal) {
+        Attachment attachment = getAttachment(id);
+        if (!principal.isAdmin() && !attachment.getUserId().equals(principal.getId())) {
+            throw new RuntimeException("You are not authorized to delete this attachment");
+        }
+        attachmentRepository.delete(attachment);
+    }
+
+    /**
+     * Deletes blobs that no attachment row references and that have not been
+     * uploaded again within the grace period, plus abandoned partial uploads.
+     */
+    public void sweepOrphanedFiles() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(orphanGraceMinutes));
+        try {
+            int incoming = attachmentStore.deleteStaleIncoming(cutoff);
+            int blobs = 0;
+            List<String> candidates = attachmentStore.findBlobsOlderThan(cutoff);
+            for (int from = 0; from < candidates.size(); from += SWEEP_BATCH_SIZE) {
+                List<String> batch = candidates.subList(from, Math.min(from + SWEEP_BATCH_SIZE, candidates.size()));
+                List<String> orphans = new ArrayList<>(batch);
+                orphans.removeAll(attachmentRepository.findReferencedHashes(batch));
+                for (String sha256 : orphans) {
+                    if (attachmentStore.deleteIfOlderThan(sha256, cutoff)) {
+                        blobs++;
+                    }
+                }
+            }
+            if (incoming > 0 || blobs > 0) {
+                log.info("Swept {} orphaned attachment files and {} partial uploads", blobs, incoming);
+            }
+        } catch (IOException e) {
+            log.warn("Attachment sweep failed", e);
+        }
+    }
+
+    private AttachmentResponse convertToResponse(Attachment attachment) {
+        String url = "/api/attachments/" + attachment.getId();
+        return new AttachmentResponse(
+                attachment.getId(),
+                attachment.getTargetType(),
+                attachment.getTargetId(),
+                attachment.getUserId(),
+                attachment.getFileName(),
+                attachment.getContentType(),
+                attachment.getSize(),
+                url,
+                ThumbnailService.SUPPORTED_TYPES.contains(attachment.getContentType()) ? url + "/thumbnail" : null,
+                attachment.getCreatedAt()
+        );
+    }
+
+    private static String cleanFileName(String original) {
+        if (original == null || original.isBlank()) {
+            return "attachment";
+        }
+        String name = original.substring(Math.max(original.lastIndexOf('/'), original.lastIndexOf('\\')) + 1)
+                .replaceAll("[\\p{Cntrl}\"]", "_")
+                .strip();
+        if (name.isEmpty()) {
+            return "attachment";
+        }
+        return name.length() > 255 ? name.substring(name.length() - 255) : name;
+    }
+}
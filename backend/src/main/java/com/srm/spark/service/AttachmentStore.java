@@ -0,0 +1,209 @@
+package com.srm.spark.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed file store for attachments. Uploads are streamed through
+ * a SHA-256 digest into a temp file and then moved to blobs/ab/cd/&lt;hash&gt;,
+ * so identical files are stored once and a blob never changes after it is
+ * written. Nothing is buffered beyond one copy chunk.
+ */
+@Component
+public class AttachmentStore {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int SNIFF_LENGTH = 12;
+
+    private final Path blobs;
+    private final Path thumbnails;
+    private final Path incoming;
+
+    @Value("${spark.attachments.max-bytes:10485760}")
+    private long maxBytes;
+
+    public record StoredBlob(String sha256, String contentType, long size) {
+    }
+
+    public AttachmentStore(@Value("${spark.attachments.dir:./data/attachments}") String dir) {
+        Path root = Path.of(dir);
+        this.blobs = root.resolve("blobs");
+        this.thumbnails = root.resolve("thumbnails");
+        this.incoming = root.resolve("incoming");
+        try {
+            Files.createDirectories(blobs);
+            Files.createDirectories(thumbnails);
+            Files.createDirectories(incoming);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create attachment store in " + dir, e);
+        }
+    }
+
+    /**
+     * Streams the upload into the store, rejecting unsupported types and
+     * anything over max-bytes, and returns its hash and detected type.
+     */
+    public StoredBlob store(InputStream in) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(incoming, "upload-", ".part");
+        try {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            byte[] head = new byte[SNIFF_LENGTH];
+            int headLength = 0;
+            long size = 0;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new MaxUploadSizeExceededException(maxBytes);
+                    }
+                    if (headLength < SNIFF_LENGTH) {
+                        int copied = Math.min(read, SNIFF_LENGTH - headLength);
+                        System.arraycopy(chunk, 0, head, headLength, copied);
+                        headLength += copied;
+                    }
+                    digest.update(chunk, 0, read);
+                    ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+                out.force(true);
+            }
+
+            String contentType = detectContentType(head, headLength);
+            if (contentType == null) {
+                throw new RuntimeException("Unsupported file type, upload a PNG, JPEG, GIF, WebP or PDF file");
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            Path target = blobPath(sha256);
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                // Already stored; refresh its age so the orphan sweep leaves it alone
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            } else {
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // A concurrent upload of the same bytes won
+                }
+            }
+            return new StoredBlob(sha256, contentType, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Path blobPath(String sha256) {
+        return blobs.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    public Path thumbnailPath(String sha256) {
+        return thumbnails.resolve(sha256.substring(0, 2)).resolve(sha256 + ".jpg");
+    }
+
+    public void writeThumbnail(String sha256, byte[] jpeg) throws IOException {
+        Path target = thumbnailPath(sha256);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(incoming, "thumb-", ".part");
+        try {
+            Files.write(temp, jpeg);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Hashes of blobs not modified since the cutoff, i.e. candidates for the orphan sweep. */
+    public List<String> findBlobsOlderThan(Instant cutoff) throws IOException {
+        try (Stream<Path> files = Files.find(blobs, 3, (path, attributes) -> attributes.isRegularFile()
+                && attributes.lastModifiedTime().toInstant().isBefore(cutoff))) {
+            return files.map(path -> path.getFileName().toString()).toList();
+        }
+    }
+
+    /** Deletes the blob and its thumbnail unless an upload of the same bytes touched it after the cutoff. */
+    public boolean deleteIfOlderThan(String sha256, Instant cutoff) throws IOException {
+        Path blob = blobPath(sha256);
+        if (!Files.exists(blob) || !Files.getLastModifiedTime(blob).toInstant().isBefore(cutoff)) {
+            return false;
+        }
+        Files.deleteIfExists(blob);
+        Files.deleteIfExists(thumbnailPath(sha256));
+        return true;
+    }
+
+    /** Leftovers of uploads interrupted by a crash. */
+    public int deleteStaleIncoming(Instant cutoff) throws IOException {
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(incoming)) {
+            for (Path file : files.toList()) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /** Identifies the type from magic bytes; the client's Content-Type is not trusted. */
+    static String detectContentType(byte[] head, int length) {
+        if (startsWith(head, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, length, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(head, length, 'R', 'I', 'F', 'F') && length >= 12
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "image/webp";
+        }
+        if (startsWith(head, length, '%', 'P', 'D', 'F', '-')) {
+            return "application/pdf";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((head[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,16 +1,25 @@
 package com.srm.spark.service;
 
+import com.srm.spark.cluster.EntityCacheSync;
 import com.srm.spark.dto.*;
 import com.srm.spark.model.User;
 import com.srm.spark.repository.UserRepository;
 import com.srm.spark.security.JwtUtils;
+import com.srm.spark.security.TokenRevocationList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.CredentialsExpiredException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -19,6 +28,9 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
     private final AuthenticationManager authenticationManager;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList tokenRevocationList;
+    private final EntityCacheSync entityCacheSync;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -34,10 +46,7 @@ public class AuthService {
 
         User savedUser = userRepository.save(user);
 
-        String token = jwtUtils.generateToken(savedUser.getEmail());
-
-        return new AuthResponse(token, savedUser.getId(), savedUser.getName(), 
-                               savedUser.getEmail(), savedUser.getRole());
+        return issueTokens(savedUser, refreshTokenService.issue(savedUser.getId()));
     }
 
     public AuthResponse login(LoginRequest request) {
@@ -48,9 +57,63 @@ public class AuthService {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found!"));
 
-        String token = jwtUtils.generateToken(user.getEmail());
+        return issueTokens(user, refreshTokenService.issue(user.getId()));
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and the refresh token's
+     * successor. Joins the rotation's transaction, so nothing is consumed
+     * unless the whole response can be built.
+     */
+    @Transactional(noRollbackFor = CredentialsExpiredException.class)
+    public AuthResponse refresh(RefreshRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        User user = userRepository.findById(rotation.userId())
+                .orElseThrow(() -> new CredentialsExpiredException("Invalid refresh token"));
+        return issueTokens(user, rotation.refreshToken());
+    }
+
+    /**
+     * Ends one session: the refresh token's family is revoked and the access
+     * token, if one is given and still valid, is put on the revocation list.
+     */
+    public void logout(String refreshToken, String accessToken) {
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenService.revokeSession(refreshToken);
+        }
+        if (accessToken != null) {
+            try {
+                Claims claims = jwtUtils.parseClaims(accessToken);
+                User user = userRepository.findByEmail(claims.getSubject()).orElse(null);
+                if (user != null) {
+                    tokenRevocationList.revoke(claims.getId(), user.getId(),
+                            LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()));
+                }
+            } catch (JwtException | IllegalArgumentException e) {
+                // Expired or invalid tokens are unusable already
+            }
+        }
+    }
 
-        return new AuthResponse(token, user.getId(), user.getName(), 
-                               user.getEmail(), user.getRole());
+    /**
+     * Logs the user out everywhere: all refresh tokens are revoked and every
+     * access token issued up to now stops being accepted. Token issue times
+     * have second precision, so the cut-off is rounded up to the next second.
+     */
+    @Transactional
+    public int logoutEverywhere(String userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+        user.setTokensValidAfter(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1));
+        userRepository.save(user);
+        // Other instances authenticate from their own cached copy of the user
+        entityCacheSync.evict(User.class, userId);
+        return refreshTokenService.revokeAll(userId);
+    }
+
+    private AuthResponse issueTokens(User user, String refreshToken) {
+        String token = jwtUtils.generateToken(user.getEmail());
+        return new AuthResponse(token, jwtUtils.getExpirationMillis() / 1000, refreshToken,
+                user.getId(), user.getName(), user.getEmail(), user.getRole());
     }
 }
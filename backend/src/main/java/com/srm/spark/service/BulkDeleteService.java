@@ -0,0 +1,181 @@
+package com.srm.spark.service;
+
+import com.srm.spark.cluster.EntityCacheSync;
+import com.srm.spark.dto.DeleteJobResponse;
+import com.srm.spark.model.Page;
+import com.srm.spark.event.EntityChangedEvent;
+import com.srm.spark.repository.AttachmentRepository;
+import com.srm.spark.repository.NotificationRepository;
+import com.srm.spark.repository.PageRepository;
+import com.srm.spark.repository.QuestionRepository;
+import com.srm.spark.repository.ReplyRepository;
+import com.srm.spark.repository.TagRepository;
+import com.srm.spark.repository.VoteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deletes pages and questions with set-based statements instead of loading
+ * every child entity for JPA cascades. Page contents are removed in bounded
+ * batches, each in its own transaction, so locks and undo stay small. Each
+ * batch records a QUESTION DELETED event per question, live or archived, in
+ * that transaction; as with a soft delete, it stands for the question's
+ * replies too.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkDeleteService {
+
+    private final QuestionRepository questionRepository;
+    private final ReplyRepository replyRepository;
+    private final NotificationRepository notificationRepository;
+    private final VoteRepository voteRepository;
+    private final AttachmentRepository attachmentRepository;
+    private final TagRepository tagRepository;
+    private final TagIndex tagIndex;
+    private final ArchiveStore archiveStore;
+    private final PageRepository pageRepository;
+    private final EntityCacheSync entityCacheSync;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, DeleteJobResponse> jobs = new ConcurrentHashMap<>();
+
+    @Value("${spark.delete.batch-size:500}")
+    private int batchSize;
+
+    @Value("${spark.delete.job-retention-minutes:60}")
+    private long jobRetentionMinutes;
+
+    public DeleteJobResponse startJob(String targetId) {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobRetentionMinutes);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+
+        DeleteJobResponse job = new DeleteJobResponse();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setTargetId(targetId);
+        job.setStatus("RUNNING");
+        job.setStartedAt(LocalDateTime.now());
+        jobs.put(job.getJobId(), job);
+        return job;
+    }
+
+    public DeleteJobResponse getJob(String jobId) {
+        DeleteJobResponse job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Delete job not found with id: " + jobId);
+        }
+        return job;
+    }
+
+    @Async
+    public void deletePageAsync(String pageId, DeleteJobResponse job) {
+        deletePage(pageId, job);
+    }
+
+    public void deletePage(String pageId, DeleteJobResponse job) {
+        try {
+            int deleted;
+            do {
+                deleted = deleteNextQuestionBatch(pageId, job);
+            } while (deleted > 0);
+            do {
+                deleted = deleteNextArchiveBatch(pageId, job);
+            } while (deleted > 0);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                pageRepository.deletePageById(pageId);
+                entityCacheSync.evict(Page.class, pageId);
+                eventPublisher.publishEvent(new EntityChangedEvent(
+                        EntityChangedEvent.PAGE, pageId, EntityChangedEvent.DELETED, null));
+            });
+
+            job.setStatus("COMPLETED");
+            log.info("Deleted page {}: {} questions, {} replies in {} batches",
+                    pageId, job.getQuestionsDeleted(), job.getRepliesDeleted(), job.getBatchesCompleted());
+        } catch (RuntimeException e) {
+            job.setStatus("FAILED");
+            job.setError(e.getMessage());
+            log.error("Delete job {} for page {} failed", job.getJobId(), pageId, e);
+            throw e;
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Removes the given questions with their replies, notifications, votes, tag links and attachment rows. Must run
+     * inside the caller's transaction.
+     */
+    public void deleteQuestions(List<String> questionIds) {
+        voteRepository.deleteByQuestionIdIn(questionIds);
+        tagRepository.deleteByQuestionIdIn(questionIds);
+        attachmentRepository.deleteByQuestionIdIn(questionIds);
+        replyRepository.deleteByQuestionIdIn(questionIds);
+        notificationRepository.deleteByQuestionIdIn(questionIds);
+        questionRepository.deleteByIdIn(questionIds);
+    }
+
+    private int deleteNextQuestionBatch(String pageId, DeleteJobResponse job) {
+        int[] deleted = transactionTemplate.execute(status -> {
+            List<String> ids = questionRepository.findIdsByPageId(pageId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return new int[] {0, 0};
+            }
+            voteRepository.deleteByQuestionIdIn(ids);
+            tagRepository.deleteByQuestionIdIn(ids);
+            attachmentRepository.deleteByQuestionIdIn(ids);
+            int replies = replyRepository.deleteByQuestionIdIn(ids);
+            notificationRepository.deleteByQuestionIdIn(ids);
+            int questions = questionRepository.deleteByIdIn(ids);
+            tagIndex.remove(ids);
+            publishQuestionsDeleted(ids);
+            return new int[] {questions, replies};
+        });
+        if (deleted == null || deleted[0] == 0) {
+            return 0;
+        }
+        job.setQuestionsDeleted(job.getQuestionsDeleted() + deleted[0]);
+        job.setRepliesDeleted(job.getRepliesDeleted() + deleted[1]);
+        job.setBatchesCompleted(job.getBatchesCompleted() + 1);
+        return deleted[0];
+    }
+
+    private int deleteNextArchiveBatch(String pageId, DeleteJobResponse job) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            ArchiveStore.DeletedBatch batch = archiveStore.deleteBatchByPageId(pageId, batchSize);
+            if (!batch.questionIds().isEmpty()) {
+                attachmentRepository.deleteByTargetIdIn(batch.targetIds());
+                notificationRepository.deleteByQuestionIdIn(batch.questionIds());
+                publishQuestionsDeleted(batch.questionIds());
+            }
+            return batch.questionIds().size();
+        });
+        if (deleted == null || deleted == 0) {
+            return 0;
+        }
+        job.setQuestionsDeleted(job.getQuestionsDeleted() + deleted);
+        job.setBatchesCompleted(job.getBatchesCompleted() + 1);
+        return deleted;
+    }
+
+    private void publishQuestionsDeleted(List<String> questionIds) {
+        for (String id : questionIds) {
+            eventPublisher.publishEvent(new EntityChangedEvent(
+                    EntityChangedEvent.QUESTION, id, EntityChangedEvent.DELETED, null));
+        }
+    }
+}
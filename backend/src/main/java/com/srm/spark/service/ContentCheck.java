@@ -0,0 +1,29 @@
+package com.srm.spark.service;
+
+/**
+ * A synchronous stage of {@link ContentScreener}. Runs on the request
+ * thread before anything is written, so it must answer in microseconds from
+ * memory; a check rejects by throwing. Checks are Spring beans and run in
+ * {@link org.springframework.core.annotation.Order} order.
+ */
+public interface ContentCheck {
+
+    /** Stage name, used as the metric tag. */
+    String name();
+
+    void check(Submission submission);
+
+    /**
+     * Gives back what a passed check consumed (e.g. a rate limit token) when
+     * the submission ends up not being written.
+     */
+    default void release(Submission submission) {
+    }
+
+    /**
+     * Text being posted. created is false for edits; trusted is set for
+     * admins, whom rate limits do not apply to.
+     */
+    record Submission(String targetType, String userId, String text, boolean created, boolean trusted) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.srm.spark.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.commonmark.node.CustomNode;
+import org.commonmark.node.Image;
+import org.commonmark.node.Link;
+import org.commonmark.node.Node;
+import org.commonmark.parser.Parser;
+import org.commonmark.parser.beta.InlineContentParser;
+import org.commonmark.parser.beta.InlineContentParserFactory;
+import org.commonmark.parser.beta.InlineParserState;
+import org.commonmark.parser.beta.ParsedInline;
+import org.commonmark.parser.beta.Position;
+import org.commonmark.parser.beta.Scanner;
+import org.commonmark.renderer.NodeRenderer;
+import org.commonmark.renderer.html.HtmlNodeRendererContext;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.commonmark.renderer.html.HtmlWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders question and reply text (CommonMark plus $...$ / $$...$$ math) to
+ * HTML that is safe to insert into a page: raw HTML in the source is escaped,
+ * link and image URLs are limited to safe schemes, and links get
+ * rel="nofollow noopener". Math is not typeset here; it is passed through
+ * escaped inside \( \) and \[ \] spans for KaTeX or MathJax on the client,
+ * so Markdown emphasis never mangles subscripts and products.
+ *
+ * Services render once on write and store the result. {@link #render} also
+ * keeps a bounded cache keyed by the SHA-256 of the source, which serves rows
+ * written before rendering existed without re-rendering them on every view.
+ */
+@Component
+public class ContentRenderer {
+
+    private final Parser parser = Parser.builder()
+            .customInlineContentParserFactory(new MathParserFactory())
+            .build();
+
+    private final HtmlRenderer renderer = HtmlRenderer.builder()
+            .escapeHtml(true)
+            .sanitizeUrls(true)
+            .attributeProviderFactory(context -> (node, tagName, attributes) -> {
+                if (node instanceof Link) {
+                    attributes.put("rel", "nofollow noopener");
+                } else if (node instanceof Image) {
+                    attributes.put("loading", "lazy");
+                }
+            })
+            .nodeRendererFactory(MathRenderer::new)
+            .build();
+
+    private final ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final int maxEntries;
+
+    public ContentRenderer(MeterRegistry meterRegistry,
+                           @Value("${spark.render.cache-size:2000}") int maxEntries) {
+        this.hits = meterRegistry.counter("spark.render.cache", "result", "hit");
+        this.misses = meterRegistry.counter("spark.render.cache", "result", "miss");
+        this.maxEntries = maxEntries;
+    }
+
+    /** Renders without touching the cache; for write paths that store the result. */
+    public String renderNow(String source) {
+        return source == null ? null : renderer.render(parser.parse(source));
+    }
+
+    /** Rendered HTML for the source, from the cache when the same text was rendered before. */
+    public String render(String source) {
+        if (source == null) {
+            return null;
+        }
+        String key = sha256(source);
+        String html = cache.get(key);
+        if (html != null) {
+            hits.increment();
+            return html;
+        }
+        misses.increment();
+        html = renderNow(source);
+        if (cache.size() >= maxEntries) {
+            evictOne();
+        }
+        cache.put(key, html);
+        return html;
+    }
+
+    private void evictOne() {
+        Iterator<String> keys = cache.keySet().iterator();
+        if (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String sha256(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class MathNode extends CustomNode {
+        private final String tex;
+        private final boolean display;
+
+        MathNode(String tex, boolean display) {
+            this.tex = tex;
+            this.display = display;
+        }
+    }
+
+    private static final class MathParserFactory implements InlineContentParserFactory {
+        @Override
+        public Set<Character> getTriggerCharacters() {
+            return Set.of('$');
+        }
+
+        @Override
+        public InlineContentParser create() {
+            return MathParserFactory::parse;
+        }
+
+        /**
+         * $tex$ or $$tex$$. Like Pandoc, inline math must not start or end with
+         * a space and the closing $ must not be followed by a digit, so prices
+         * such as "$5 and $10" stay text. An escaped \$ never closes a span.
+         */
+        private static ParsedInline parse(InlineParserState state) {
+            Scanner scanner = state.scanner();
+            int opening = scanner.matchMultiple('$');
+            if (opening > 2) {
+                return ParsedInline.none();
+            }
+            Position contentStart = scanner.position();
+            while (scanner.find('$') != -1) {
+                if (scanner.peekPreviousCodePoint() == '\\') {
+                    scanner.next();
+                    continue;
+                }
+                Position contentEnd = scanner.position();
+                if (scanner.matchMultiple('$') != opening) {
+                    continue;
+                }
+                String tex = scanner.getSource(contentStart, contentEnd).getContent();
+                if (tex.isBlank() || Character.isDigit(scanner.peek()) || opening == 1
+                        && (Character.isWhitespace(tex.charAt(0)) || Character.isWhitespace(tex.charAt(tex.length() - 1)))) {
+                    return ParsedInline.none();
+                }
+                return ParsedInline.of(new MathNode(tex.strip(), opening == 2), scanner.position());
+            }
+            return ParsedInline.none();
+        }
+    }
+
+    private static final class MathRenderer implements NodeRenderer {
+        private final HtmlWriter html;
+
+        MathRenderer(HtmlNodeRendererContext context) {
+            this.html = context.getWriter();
+        }
+
+        @Override
+        public Set<Class<? extends Node>> getNodeTypes() {
+            return Set.of(MathNode.class);
+        }
+
+        @Override
+        public void render(Node node) {
+            MathNode math = (MathNode) node;
+            html.tag("span", Map.of("class", math.display ? "math display" : "math inline"));
+            html.text(math.display ? "\\[" + math.tex + "\\]" : "\\(" + math.tex + "\\)");
+            html.tag("/span");
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.srm.spark.service;
+
+import com.srm.spark.event.TombstoneEvent;
+import com.srm.spark.repository.QuestionRepository;
+import com.srm.spark.repository.ReplyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content screening for question and reply writes, in two tiers.
+ *
+ * {@link #screen} runs every {@link ContentCheck} on the request thread
+ * before the write; they work from memory and reject by throwing.
+ * {@link #review} queues the committed post for {@link SpamScorer} on a
+ * single background thread, which hides (soft-deletes) posts scoring at or
+ * above hide-threshold after the fact. The queue is bounded: when it is
+ * full, posts skip review rather than slow down writers.
+ *
+ * Every check is timed as spark.moderation.check (tagged by stage and
+ * result), scoring as spark.moderation.review.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class ContentScreener implements SmartLifecycle {
+
+    public static final String QUESTION = TombstoneEvent.QUESTION;
+    public static final String REPLY = TombstoneEvent.REPLY;
+
+    private final List<ContentCheck> checks;
+    private final SpamScorer spamScorer;
+    private final QuestionRepository questionRepository;
+    private final ReplyRepository replyRepository;
+    private final TagIndex tagIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Timer reviewTimer;
+    private final Counter hidden;
+    private final Counter skipped;
+
+    @Value("${spark.moderation.hide-threshold:1.0}")
+    private double hideThreshold;
+
+    @Value("${spark.moderation.review-queue-capacity:10000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor reviewer;
+    private volatile boolean running;
+
+    public ContentScreener(List<ContentCheck> checks, SpamScorer spamScorer, QuestionRepository questionRepository,
+                           ReplyRepository replyRepository, TagIndex tagIndex,
+                           ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry) {
+        this.checks = checks;
+        this.spamScorer = spamScorer;
+        this.questionRepository = questionRepository;
+        this.replyRepository = replyRepository;
+        this.tagIndex = tagIndex;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.reviewTimer = meterRegistry.timer("spark.moderation.review");
+        this.hidden = meterRegistry.counter("spark.moderation.hidden");
+        this.skipped = meterRegistry.counter("spark.moderation.review.skipped");
+    }
+
+    /**
+     * Runs the synchronous checks; throws if one rejects the submission, after
+     * releasing the checks that had passed. Inside a transaction the checks are
+     * also released if it rolls back; callers writing outside one call
+     * {@link #release} themselves when the write fails.
+     */
+    public void screen(ContentCheck.Submission submission) {
+        List<ContentCheck> passed = new ArrayList<>(checks.size());
+        for (ContentCheck check : checks) {
+            long started = System.nanoTime();
+            String result = "pass";
+            try {
+                check.check(submission);
+                passed.add(check);
+            } catch (RuntimeException e) {
+                result = "reject";
+                passed.forEach(earlier -> earlier.release(submission));
+                throw e;
+            } finally {
+                meterRegistry.timer("spark.moderation.check", "stage", check.name(), "result", result)
+                        .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(submission);
+                    }
+                }
+            });
+        }
+    }
+
+    /** Undoes a successful {@link #screen} whose post was not written. */
+    public void release(ContentCheck.Submission submission) {
+        checks.forEach(check -> check.release(submission));
+    }
+
+    /** Queues a post for spam scoring once the current transaction commits. */
+    public void review(String targetType, String targetId, String userId, String text, boolean created) {
+        Runnable task = () -> {
+            if (!running) {
+                return;
+            }
+            try {
+                reviewer.execute(() -> score(targetType, targetId, userId, text, created));
+            } catch (RuntimeException e) {
+                skipped.increment();
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    private void score(String targetType, String targetId, String userId, String text, boolean created) {
+        try {
+            SpamScorer.Score score = reviewTimer.record(() -> spamScorer.score(userId, text, created));
+            if (score.value() >= hideThreshold && hide(targetType, targetId)) {
+                hidden.increment();
+                log.warn("Hid {} {} by user {}: score {} ({})", targetType.toLowerCase(), targetId, userId,
+                        String.format("%.2f", score.value()), String.join(", ", score.reasons()));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to review {} {}", targetType.toLowerCase(), targetId, e);
+        }
+    }
+
+    // Same effect as an admin delete, including the tombstone for outbox consumers
+    private boolean hide(String targetType, String targetId) {
+        Boolean hid = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (QUESTION.equals(targetType)) {
+                if (questionRepository.softDeleteById(targetId, null, true, now) == 0) {
+                    return false;
+                }
+                tagIndex.remove(List.of(targetId));
+            } else {
+                if (replyRepository.softDeleteById(targetId, null, true, now) == 0) {
+                    return false;
+                }
+                questionRepository.clearAcceptedReply(targetId, now);
+            }
+            eventPublisher.publishEvent(new TombstoneEvent(targetType, targetId, now));
+            return true;
+        });
+        return Boolean.TRUE.equals(hid);
+    }
+
+    @Override
+    public void start() {
+        reviewer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "content-review");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        meterRegistry.gauge("spark.moderation.review.queue", reviewer.getQueue(), Collection::size);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        reviewer.shutdown();
+        try {
+            if (!reviewer.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Dropped {} pending content reviews at shutdown", reviewer.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,58 @@
+package com.srm.spark.service;
+
+import com.srm.spark.exception.ContentRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rejects posts containing a blocklisted word or phrase. Terms come from
+ * spark.moderation.blocklist and, one per line, from blocklist-file (lines
+ * starting with # are comments). All terms are compiled into one
+ * {@link AhoCorasick} automaton at startup, so a check is a single pass
+ * over the text however long the list is.
+ */
+@Component
+@Order(10)
+@Slf4j
+public class KeywordBlocklistCheck implements ContentCheck {
+
+    private final AhoCorasick blocklist;
+
+    public KeywordBlocklistCheck(@Value("${spark.moderation.blocklist:}") List<String> terms,
+                                 @Value("${spark.moderation.blocklist-file:}") String file) {
+        List<String> all = new ArrayList<>();
+        terms.stream().filter(term -> !term.isBlank()).forEach(all::add);
+        if (!file.isBlank()) {
+            try {
+                Files.readAllLines(Path.of(file)).stream()
+                        .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                        .forEach(all::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read blocklist " + file, e);
+            }
+        }
+        this.blocklist = new AhoCorasick(all);
+        log.info("Loaded {} blocklisted terms", all.size());
+    }
+
+    @Override
+    public String name() {
+        return "blocklist";
+    }
+
+    @Override
+    public void check(Submission submission) {
+        if (blocklist.findFirst(submission.text()) != null) {
+            throw new ContentRejectedException("Your post contains language that is not allowed");
+        }
+    }
+}
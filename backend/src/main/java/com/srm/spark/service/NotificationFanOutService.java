@@ -0,0 +1,202 @@
+package com.srm.spark.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srm.spark.event.EntityChangedEvent;
+import com.srm.spark.model.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns new replies into notifications for the question's author, off the
+ * request thread. The worker tails the outbox as the "notifications"
+ * consumer: each batch of events is folded into at most one upsert per
+ * (author, question) and committed together with the checkpoint, so a
+ * thread receiving thousands of replies costs a handful of row updates and
+ * no event is delivered twice. Replies by the author themselves are skipped.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class NotificationFanOutService {
+
+    static final String CONSUMER = "notifications";
+
+    private static final String UPDATE_SQL = "UPDATE notifications SET unread_count = unread_count + ?, "
+            + "last_reply_id = ?, last_replier_name = ?, updated_at = ? WHERE user_id = ? AND question_id = ?";
+    private static final String INSERT_SQL = "INSERT INTO notifications "
+            + "(unread_count, last_reply_id, last_replier_name, updated_at, user_id, question_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final OutboxService outboxService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final UnreadCountCache unreadCountCache;
+
+    @Value("${spark.notifications.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spark.notifications.batch-size:500}")
+    private int batchSize;
+
+    public NotificationFanOutService(OutboxService outboxService, JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                                     UnreadCountCache unreadCountCache) {
+        this.outboxService = outboxService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.unreadCountCache = unreadCountCache;
+    }
+
+    @Scheduled(fixedDelayString = "${spark.notifications.poll-millis:500}")
+    public void fanOut() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int events;
+            do {
+                events = fanOutNextBatch();
+            } while (events == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Notification fan-out failed, retrying on the next poll", e);
+        }
+    }
+
+    private int fanOutNextBatch() {
+        Batch batch = transactionTemplate.execute(status -> {
+            long checkpoint = outboxService.claim(CONSUMER);
+            List<OutboxEvent> events = outboxService.read(checkpoint, batchSize);
+            if (events.isEmpty()) {
+                return new Batch(0, Map.of());
+            }
+            Map<String, Integer> newlyUnread = deliver(events);
+            outboxService.checkpoint(CONSUMER, events.get(events.size() - 1).getPosition());
+            return new Batch(events.size(), newlyUnread);
+        });
+        if (batch == null) {
+            return 0;
+        }
+        // Only after commit, so the cache never counts something a reader cannot see
+        unreadCountCache.addAll(batch.newlyUnread());
+        return batch.events();
+    }
+
+    /**
+     * Upserts one notification per (author, question) for the reply
+     * creations in the batch; returns, per author, how many notifications
+     * went from read to unread.
+     */
+    private Map<String, Integer> deliver(List<OutboxEvent> events) {
+        List<JsonNode> replies = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            if (EntityChangedEvent.REPLY.equals(event.getEntityType())
+                    && EntityChangedEvent.CREATED.equals(event.getAction())) {
+                replies.add(parse(event.getPayload()));
+            }
+        }
+        if (replies.isEmpty()) {
+            return Map.of();
+        }
+
+        List<String> questionIds = replies.stream().map(reply -> reply.path("questionId").asText()).distinct().toList();
+        String placeholders = String.join(",", questionIds.stream().map(id -> "?").toList());
+        Map<String, String> authors = new HashMap<>();
+        jdbcTemplate.query("SELECT id, user_id FROM questions WHERE deleted = false AND id IN (" + placeholders + ")",
+                rs -> {
+                    authors.put(rs.getString(1), rs.getString(2));
+                }, questionIds.toArray());
+        Map<String, Integer> unread = new HashMap<>();
+        jdbcTemplate.query("SELECT question_id, unread_count FROM notifications WHERE question_id IN (" + placeholders + ")",
+                rs -> {
+                    unread.put(rs.getString(1), rs.getInt(2));
+                }, questionIds.toArray());
+
+        // Events are in stream position order (not id order), so the last reply seen per question
+        // is the newest one the stream has delivered
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        for (JsonNode reply : replies) {
+            String questionId = reply.path("questionId").asText();
+            String author = authors.get(questionId);
+            if (author == null || author.equals(reply.path("userId").asText())) {
+                continue;
+            }
+            Delta delta = deltas.computeIfAbsent(questionId, id -> new Delta(author, id));
+            delta.count++;
+            delta.lastReplyId = reply.path("id").asText();
+            delta.lastReplierName = reply.path("userName").asText();
+        }
+
+        List<Delta> updates = new ArrayList<>();
+        List<Delta> inserts = new ArrayList<>();
+        Map<String, Integer> newlyUnread = new HashMap<>();
+        for (Delta delta : deltas.values()) {
+            Integer current = unread.get(delta.questionId);
+            (current == null ? inserts : updates).add(delta);
+            if (current == null || current == 0) {
+                newlyUnread.merge(delta.userId, 1, Integer::sum);
+            }
+        }
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (ps, delta) -> {
+            ps.setInt(1, delta.count);
+            ps.setString(2, delta.lastReplyId);
+            ps.setString(3, delta.lastReplierName);
+            ps.setTimestamp(4, updatedAt);
+            ps.setString(5, delta.userId);
+            ps.setString(6, delta.questionId);
+        });
+        jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (ps, delta) -> {
+            ps.setInt(1, delta.count);
+            ps.setString(2, delta.lastReplyId);
+            ps.setString(3, delta.lastReplierName);
+            ps.setTimestamp(4, updatedAt);
+            ps.setString(5, delta.userId);
+            ps.setString(6, delta.questionId);
+        });
+        log.debug("Delivered {} replies as {} notification updates and {} new notifications",
+                replies.size(), updates.size(), inserts.size());
+        return newlyUnread;
+    }
+
+    private JsonNode parse(String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable reply payload in outbox", e);
+        }
+    }
+
+    private record Batch(int events, Map<String, Integer> newlyUnread) {
+    }
+
+    private static final class Delta {
+        private final String userId;
+        private final String questionId;
+        private int count;
+        private String lastReplyId;
+        private String lastReplierName;
+
+        private Delta(String userId, String questionId) {
+            this.userId = userId;
+            this.questionId = questionId;
+        }
+    }
+}
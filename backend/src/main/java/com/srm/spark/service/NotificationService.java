@@ -0,0 +1,43 @@
+package com.srm.spark.service;
+
+import com.srm.spark.dto.NotificationResponse;
+import com.srm.spark.repository.NotificationRepository;
+import com.srm.spark.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class NotificationService {
+
+    private final NotificationRepository notificationRepository;
+    private final UnreadCountCache unreadCountCache;
+
+    @Transactional(readOnly = true)
+    public List<NotificationResponse> getInbox(UserPrincipal principal, boolean unreadOnly, int page, int size) {
+        return notificationRepository.findInbox(principal.getId(), unreadOnly, PageRequest.of(page, size));
+    }
+
+    public long getUnreadCount(UserPrincipal principal) {
+        return unreadCountCache.get(principal.getId(), () -> notificationRepository.countUnread(principal.getId()));
+    }
+
+    @Transactional
+    public void markRead(Long id, UserPrincipal principal) {
+        if (notificationRepository.markRead(id, principal.getId()) == 0
+                && !notificationRepository.existsByIdAndUserId(id, principal.getId())) {
+            throw new RuntimeException("Notification not found with id: " + id);
+        }
+        unreadCountCache.invalidate(principal.getId());
+    }
+
+    @Transactional
+    public void markAllRead(UserPrincipal principal) {
+        notificationRepository.markAllRead(principal.getId());
+        unreadCountCache.invalidate(principal.getId());
+    }
+}
@@ -0,0 +1,70 @@
+package com.srm.spark.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retry policy for flag updates on versioned rows that race with user edits,
+ * such as the accepted-reply marker. Each attempt runs in a fresh
+ * transaction (rolling back clears the persistence context, so the next one
+ * re-reads); optimistic lock and lock acquisition failures are retried with
+ * jittered backoff instead of taking a pessimistic lock on hot rows. User
+ * edits are not retried: they surface conflicts to the client through
+ * If-Match instead.
+ */
+@Component
+@Slf4j
+public class OptimisticRetry {
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spark.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${spark.retry.backoff-ms:10}")
+    private long backoffMillis;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Concurrent update conflict, attempt {} of {}", attempt, maxAttempts);
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = backoffMillis << Math.min(attempt, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMillis, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying", e);
+        }
+    }
+}
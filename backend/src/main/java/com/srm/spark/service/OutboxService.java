@@ -0,0 +1,190 @@
+package com.srm.spark.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srm.spark.event.EntityChangedEvent;
+import com.srm.spark.event.TombstoneEvent;
+import com.srm.spark.model.OutboxCheckpoint;
+import com.srm.spark.model.OutboxEvent;
+import com.srm.spark.repository.OutboxCheckpointRepository;
+import com.srm.spark.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional outbox. Every domain mutation is recorded in outbox_events
+ * inside the transaction that performs it, so the change stream can never
+ * disagree with the primary tables. Consumers tail the log by position and
+ * store it as a named checkpoint.
+ *
+ * Ids are assigned at insert but become visible at commit, so a lower id can
+ * show up after a reader has moved past it. Positions are therefore given
+ * out after commit, by {@link #sequence}: one sequencer at a time (across
+ * instances) numbers the committed events it finds, and its numbers become
+ * visible all at once when it commits. A reader never sees a position before
+ * every lower one, however long a writing transaction takes to commit.
+ */
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    // Checkpoint row holding the last assigned position; locking it serializes sequencers
+    static final String SEQUENCER = "outbox-sequencer";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxCheckpointRepository outboxCheckpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spark.outbox.sequence-batch-size:1000}")
+    private int sequenceBatchSize;
+
+    @Value("${spark.outbox.retention-days:7}")
+    private long retentionDays;
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onEntityChanged(EntityChangedEvent event) {
+        append(event.getEntityType(), event.getEntityId(), event.getAction(), event.getPayload());
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onTombstone(TombstoneEvent event) {
+        append(event.getEntityType(), event.getEntityId(), EntityChangedEvent.DELETED,
+                Map.of("deletedAt", event.getDeletedAt()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<OutboxEvent> read(long afterPosition, int limit) {
+        return outboxEventRepository.findAfter(afterPosition, PageRequest.of(0, limit));
+    }
+
+    /** Assigns the next positions to committed events that have none yet, in id order. */
+    @Scheduled(fixedDelayString = "${spark.outbox.sequence-millis:200}")
+    @Transactional
+    public void sequence() {
+        long position = outboxCheckpointRepository.findForUpdate(SEQUENCER)
+                .map(OutboxCheckpoint::getLastPosition)
+                .orElseGet(this::startSequencer);
+        List<Long> ids = outboxEventRepository.findUnsequencedIds(PageRequest.of(0, sequenceBatchSize));
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE outbox_events SET stream_position = ? WHERE id = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, position + 1 + i);
+                        ps.setLong(2, ids.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return ids.size();
+                    }
+                });
+        outboxCheckpointRepository.save(new OutboxCheckpoint(SEQUENCER, position + ids.size(), LocalDateTime.now()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<OutboxEvent> poll(String consumer, int limit) {
+        return read(getCheckpoint(consumer), limit);
+    }
+
+    @Transactional(readOnly = true)
+    public long getCheckpoint(String consumer) {
+        return outboxCheckpointRepository.findById(consumer)
+                .map(OutboxCheckpoint::getLastPosition)
+                .orElse(0L);
+    }
+
+    /**
+     * Locks a consumer's checkpoint row until the surrounding transaction
+     * ends, so concurrent workers for the same consumer take turns, and
+     * returns its position. A consumer without a checkpoint starts at the
+     * head of the log and only sees events appended from now on.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long claim(String consumer) {
+        return outboxCheckpointRepository.findForUpdate(consumer)
+                .map(OutboxCheckpoint::getLastPosition)
+                .orElseGet(() -> {
+                    long head = outboxEventRepository.findMaxPosition();
+                    outboxCheckpointRepository.saveAndFlush(new OutboxCheckpoint(consumer, head, LocalDateTime.now()));
+                    return head;
+                });
+    }
+
+    @Transactional
+    public void checkpoint(String consumer, long position) {
+        if (SEQUENCER.equals(consumer)) {
+            throw new RuntimeException("Consumer name " + SEQUENCER + " is reserved");
+        }
+        OutboxCheckpoint checkpoint = outboxCheckpointRepository.findById(consumer)
+                .orElseGet(() -> new OutboxCheckpoint(consumer, 0L, null));
+        if (position < checkpoint.getLastPosition()) {
+            throw new RuntimeException("Checkpoint for " + consumer + " cannot move backwards");
+        }
+        checkpoint.setLastPosition(position);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        outboxCheckpointRepository.save(checkpoint);
+    }
+
+    @Scheduled(cron = "${spark.outbox.cleanup-cron:0 30 4 * * *}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = outboxEventRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Deleted {} outbox events older than {} days", deleted, retentionDays);
+        }
+    }
+
+    // Events written before positions existed keep their id as position, so
+    // checkpoints taken back then stay valid
+    private long startSequencer() {
+        outboxEventRepository.adoptIdsAsPositions();
+        long head = outboxEventRepository.findMaxPosition();
+        outboxCheckpointRepository.saveAndFlush(new OutboxCheckpoint(SEQUENCER, head, LocalDateTime.now()));
+        return head;
+    }
+
+    private void append(String entityType, String entityId, String action, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEntityType(entityType);
+        event.setEntityId(entityId);
+        event.setAction(action);
+        event.setPayload(toJson(payload));
+        event.setCreatedAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+    }
+
+    private String toJson(Object payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize outbox payload", e);
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package com.srm.spark.service;
 
+import com.srm.spark.cluster.EntityCacheSync;
+import com.srm.spark.dto.DeleteJobResponse;
 import com.srm.spark.dto.PageResponse;
+import com.srm.spark.event.EntityChangedEvent;
 import com.srm.spark.model.Page;
 import com.srm.spark.repository.PageRepository;
+import com.srm.spark.repository.QuestionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -15,23 +21,29 @@ import java.util.stream.Collectors;
 public class PageService {
 
     private final PageRepository pageRepository;
+    private final QuestionRepository questionRepository;
+    private final BulkDeleteService bulkDeleteService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityCacheSync entityCacheSync;
 
     public List<PageResponse> getAllPages() {
+        Map<String, Long> counts = questionRepository.countGroupByPage().stream()
+                .collect(Collectors.toMap(QuestionRepository.PageCount::getPageId, QuestionRepository.PageCount::getTotal));
         return pageRepository.findAll().stream()
-                .map(this::convertToResponse)
+                .map(page -> convertToResponse(page, counts.getOrDefault(page.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
     public PageResponse getPageById(String id) {
         Page page = pageRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Page not found with id: " + id));
-        return convertToResponse(page);
+        return convertToResponse(page, questionRepository.countByPageId(page.getId()));
     }
 
     public PageResponse getPageByName(String name) {
         Page page = pageRepository.findByName(name)
                 .orElseThrow(() -> new RuntimeException("Page not found with name: " + name));
-        return convertToResponse(page);
+        return convertToResponse(page, questionRepository.countByPageId(page.getId()));
     }
 
     @Transactional
@@ -45,23 +57,42 @@ public class PageService {
         page.setDescription(description);
 
         Page savedPage = pageRepository.save(page);
-        return convertToResponse(savedPage);
+        // A page deleted and re-created under the same name must not resolve to the old id elsewhere
+        entityCacheSync.evict(Page.class, savedPage.getId());
+        PageResponse response = convertToResponse(savedPage, 0);
+        eventPublisher.publishEvent(new EntityChangedEvent(
+                EntityChangedEvent.PAGE, savedPage.getId(), EntityChangedEvent.CREATED, response));
+        return response;
     }
 
-    @Transactional
-    public void deletePage(String id) {
+    public DeleteJobResponse deletePage(String id) {
+        if (!pageRepository.existsById(id)) {
+            throw new RuntimeException("Page not found with id: " + id);
+        }
+        DeleteJobResponse job = bulkDeleteService.startJob(id);
+        bulkDeleteService.deletePage(id, job);
+        return job;
+    }
+
+    public DeleteJobResponse deletePageAsync(String id) {
         if (!pageRepository.existsById(id)) {
             throw new RuntimeException("Page not found with id: " + id);
         }
-        pageRepository.deleteById(id);
+        DeleteJobResponse job = bulkDeleteService.startJob(id);
+        bulkDeleteService.deletePageAsync(id, job);
+        return job;
+    }
+
+    public DeleteJobResponse getDeleteJob(String jobId) {
+        return bulkDeleteService.getJob(jobId);
     }
 
-    private PageResponse convertToResponse(Page page) {
+    private PageResponse convertToResponse(Page page, long questionCount) {
         return new PageResponse(
                 page.getId(),
                 page.getName(),
                 page.getDescription(),
-                page.getQuestions().size(),
+                (int) questionCount,
                 page.getCreatedAt()
         );
     }
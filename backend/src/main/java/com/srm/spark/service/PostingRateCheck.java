@@ -0,0 +1,133 @@
+package com.srm.spark.service;
+
+import com.srm.spark.exception.ContentRejectedException;
+import com.srm.spark.exception.RateLimitExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-user posting limits: a token bucket of burst new posts refilled at
+ * posts-per-hour, and at most max-links links in one post. Buckets live in
+ * memory on each instance and are dropped once they are full again, so
+ * idle users cost nothing. Edits are not rate limited and admins are exempt.
+ * A token taken for a post that is then rejected or rolled back is given
+ * back through {@link #release}.
+ */
+@Component
+@Order(20)
+public class PostingRateCheck implements ContentCheck {
+
+    private static final Pattern LINK = Pattern.compile("(?i)\\bhttps?://|\\bwww\\.");
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final int burst;
+    private final double tokensPerNano;
+    private final int maxLinks;
+
+    public PostingRateCheck(@Value("${spark.moderation.burst:5}") int burst,
+                            @Value("${spark.moderation.posts-per-hour:30}") int postsPerHour,
+                            @Value("${spark.moderation.max-links:5}") int maxLinks) {
+        this.burst = burst;
+        this.tokensPerNano = postsPerHour / (double) TimeUnit.HOURS.toNanos(1);
+        this.maxLinks = maxLinks;
+    }
+
+    @Override
+    public String name() {
+        return "rate";
+    }
+
+    @Override
+    public void check(Submission submission) {
+        if (countLinks(submission.text()) > maxLinks) {
+            throw new ContentRejectedException("Posts can contain at most " + maxLinks + " links");
+        }
+        if (!submission.created() || submission.trusted()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long[] waitNanos = new long[1];
+        // Atomic with the sweep's removal, so the token is never taken from a bucket being dropped
+        buckets.compute(submission.userId(), (key, bucket) -> {
+            Bucket current = bucket != null ? bucket : new Bucket(burst);
+            waitNanos[0] = current.tryTake(now);
+            return current;
+        });
+        if (waitNanos[0] > 0) {
+            throw new RateLimitExceededException("You are posting too fast, try again later",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos[0])));
+        }
+    }
+
+    @Override
+    public void release(Submission submission) {
+        if (!submission.created() || submission.trusted()) {
+            return;
+        }
+        // A bucket swept meanwhile was full, so there is nothing to give back
+        buckets.computeIfPresent(submission.userId(), (key, bucket) -> {
+            bucket.refund();
+            return bucket;
+        });
+    }
+
+    static int countLinks(String text) {
+        Matcher matcher = LINK.matcher(text);
+        int links = 0;
+        while (matcher.find()) {
+            links++;
+        }
+        return links;
+    }
+
+    @Scheduled(fixedDelayString = "${spark.moderation.bucket-sweep-millis:600000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        for (String userId : buckets.keySet()) {
+            buckets.computeIfPresent(userId, (key, bucket) -> bucket.isFull(now) ? null : bucket);
+        }
+    }
+
+    // Only used inside buckets.compute*, which serializes access per user
+
+    private final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(double tokens) {
+            this.tokens = tokens;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /** Takes a token and returns 0, or returns how long until one is available. */
+        long tryTake(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens--;
+                return 0;
+            }
+            return (long) ((1 - tokens) / tokensPerNano);
+        }
+
+        boolean isFull(long now) {
+            refill(now);
+            return tokens >= burst;
+        }
+
+        void refund() {
+            tokens = Math.min(burst, tokens + 1);
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
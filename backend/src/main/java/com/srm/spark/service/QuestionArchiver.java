@@ -0,0 +1,114 @@
+package com.srm.spark.service;
+
+import com.srm.spark.dto.QuestionThreadResponse;
+import com.srm.spark.dto.ReplyResponse;
+import com.srm.spark.repository.QuestionRepository;
+import com.srm.spark.repository.ReplyRepository;
+import com.srm.spark.repository.TagRepository;
+import com.srm.spark.repository.VoteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves threads nobody has touched for after-days out of the hot tables
+ * into {@link ArchiveStore}, in small batches off-peak, so the questions and
+ * replies tables and their indexes only grow with recent activity. Each
+ * batch copies and deletes in one transaction. Votes and tag links of
+ * archived threads are dropped, their score and tags are kept in the
+ * archived copy; attachment rows and notifications stay where they are.
+ *
+ * Only the replies in the copy are deleted. A reply committed after the
+ * copy was taken still references its question, so deleting the question
+ * fails and the batch rolls back instead of losing the reply; the thread
+ * has been active again by then and is no longer a candidate.
+ */
+@Component
+@Lazy(false)
+@RequiredArgsConstructor
+@Slf4j
+public class QuestionArchiver {
+
+    private final QuestionRepository questionRepository;
+    private final ReplyRepository replyRepository;
+    private final VoteRepository voteRepository;
+    private final TagRepository tagRepository;
+    private final QuestionService questionService;
+    private final ArchiveStore archiveStore;
+    private final TagIndex tagIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spark.archive.after-days:540}")
+    private long afterDays;
+
+    @Value("${spark.archive.batch-size:100}")
+    private int batchSize;
+
+    @Value("${spark.archive.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Scheduled(cron = "${spark.archive.cron:0 30 2 * * *}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int batches = 0;
+        long archived = 0;
+        while (batches < maxBatchesPerRun) {
+            int moved = archiveBatch(cutoff);
+            if (moved == 0) {
+                break;
+            }
+            archived += moved;
+            batches++;
+        }
+        if (archived > 0) {
+            log.info("Archived {} questions in {} batches", archived, batches);
+        }
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        Integer archived;
+        try {
+            archived = transactionTemplate.execute(status -> {
+                List<String> candidates = questionRepository.findArchivableIds(cutoff, PageRequest.of(0, batchSize));
+                if (candidates.isEmpty()) {
+                    return 0;
+                }
+                // Lock before copying, so the copy includes every reply committed until now
+                List<String> ids = questionRepository.lockByIdIn(candidates);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                Map<String, QuestionThreadResponse> threads = questionService.getThreads(ids);
+                archiveStore.store(threads.values());
+                List<String> replyIds = threads.values().stream()
+                        .flatMap(thread -> thread.getReplies().stream())
+                        .map(ReplyResponse::getId)
+                        .toList();
+                voteRepository.deleteByQuestionIdIn(ids);
+                tagRepository.deleteByQuestionIdIn(ids);
+                if (!replyIds.isEmpty()) {
+                    replyRepository.deleteByIdIn(replyIds);
+                }
+                replyRepository.deleteTombstonedByQuestionIdIn(ids);
+                questionRepository.deleteByIdIn(ids);
+                tagIndex.remove(ids);
+                return ids.size();
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Archive batch rolled back, a reply arrived while it was being copied: {}",
+                    e.getMostSpecificCause().getMessage());
+            return 0;
+        }
+        return archived == null ? 0 : archived;
+    }
+}
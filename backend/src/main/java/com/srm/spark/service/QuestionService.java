@@ -2,20 +2,40 @@ package com.srm.spark.service;
 
 import com.srm.spark.dto.QuestionRequest;
 import com.srm.spark.dto.QuestionResponse;
+import com.srm.spark.dto.QuestionSummaryResponse;
+import com.srm.spark.dto.QuestionThreadResponse;
+import com.srm.spark.dto.ReplyResponse;
+import com.srm.spark.event.EntityChangedEvent;
+import com.srm.spark.event.TombstoneEvent;
+import com.srm.spark.exception.PreconditionFailedException;
 import com.srm.spark.model.Page;
 import com.srm.spark.model.Question;
-import com.srm.spark.model.User;
+import com.srm.spark.model.Tag;
 import com.srm.spark.repository.PageRepository;
 import com.srm.spark.repository.QuestionRepository;
+import com.srm.spark.repository.ReplyRepository;
 import com.srm.spark.repository.UserRepository;
+import com.srm.spark.security.UserPrincipal;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -24,6 +44,15 @@ public class QuestionService {
     private final QuestionRepository questionRepository;
     private final UserRepository userRepository;
     private final PageRepository pageRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReplyService replyService;
+    private final ReplyRepository replyRepository;
+    private final ContentRenderer contentRenderer;
+    private final TagService tagService;
+    private final TagIndex tagIndex;
+    private final ArchiveStore archiveStore;
+    private final ContentScreener contentScreener;
+    private final OptimisticRetry optimisticRetry;
 
     public List<QuestionResponse> getQuestionsByPage(String pageId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
@@ -41,73 +70,232 @@ public class QuestionService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Streams feed rows straight from the result set to the consumer, so a
+     * page of the feed is never materialized as a list. With tags, the page of
+     * matching ids comes from the {@link TagIndex} and only those rows are read.
+     */
+    @Transactional(readOnly = true)
+    public void streamFeed(String pageId, String pageName, List<String> tags, boolean matchAllTags,
+                           int page, int size, int previewLength, Consumer<QuestionSummaryResponse> consumer) {
+        if (tags != null && !tags.isEmpty()) {
+            if (pageId == null && pageName != null) {
+                pageId = pageRepository.findByName(pageName).map(Page::getId).orElse(null);
+                if (pageId == null) {
+                    return;
+                }
+            }
+            List<String> ids = tagIndex.find(tagService.normalize(tags), matchAllTags, pageId, page * size, size);
+            if (ids.isEmpty()) {
+                return;
+            }
+            try (Stream<QuestionSummaryResponse> rows = questionRepository.streamFeedByIdIn(ids, previewLength)) {
+                rows.forEach(consumer);
+            }
+            return;
+        }
+        Pageable pageable = PageRequest.of(page, size);
+        try (Stream<QuestionSummaryResponse> rows =
+                     questionRepository.streamFeed(pageId, pageName, previewLength, pageable)) {
+            rows.forEach(consumer);
+        }
+    }
+
+    /**
+     * Resolves several threads with two queries: one for the questions with
+     * their author and page, one for all of their replies. Ids missing from
+     * the hot tables are looked up in the archive with a third.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, QuestionThreadResponse> getThreads(List<String> ids) {
+        Map<String, Question> questions = questionRepository.findAllWithUserAndPageByIdIn(ids).stream()
+                .collect(Collectors.toMap(Question::getId, Function.identity()));
+        Map<String, List<ReplyResponse>> replies = questions.isEmpty()
+                ? Map.of()
+                : replyService.getRepliesByQuestions(questions.keySet());
+
+        List<String> missing = ids.stream().filter(id -> !questions.containsKey(id)).toList();
+        Map<String, QuestionThreadResponse> archived = missing.isEmpty()
+                ? Map.of()
+                : archiveStore.findThreads(missing);
+
+        Map<String, QuestionThreadResponse> threads = new LinkedHashMap<>();
+        for (String id : ids) {
+            Question question = questions.get(id);
+            if (question != null && !threads.containsKey(id)) {
+                List<ReplyResponse> questionReplies = replies.getOrDefault(id, List.of());
+                threads.put(id, new QuestionThreadResponse(
+                        convertToResponse(question, questionReplies.size()), questionReplies));
+            } else if (archived.containsKey(id)) {
+                threads.put(id, archived.get(id));
+            }
+        }
+        return threads;
+    }
+
+    /** Version stamp of a question in the hot tier; empty for archived and unknown ids. */
+    public Optional<QuestionRepository.Stamp> findQuestionStamp(String id) {
+        return questionRepository.findStampById(id);
+    }
+
+    /** The question from the hot tables, falling back to the archive for ids that have been archived. */
     public QuestionResponse getQuestionById(String id) {
-        Question question = questionRepository.findById(id)
+        return questionRepository.findById(id)
+                .map(this::convertToResponse)
+                .or(() -> archiveStore.findThread(id).map(QuestionThreadResponse::getQuestion))
                 .orElseThrow(() -> new RuntimeException("Question not found with id: " + id));
-        return convertToResponse(question);
     }
 
     @Transactional
-    public QuestionResponse createQuestion(QuestionRequest request, String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        Page page = pageRepository.findById(request.getPageId())
-                .orElseThrow(() -> new RuntimeException("Page not found with id: " + request.getPageId()));
+    public QuestionResponse createQuestion(QuestionRequest request, UserPrincipal principal) {
+        String text = screenedText(request);
+        contentScreener.screen(new ContentCheck.Submission(
+                ContentScreener.QUESTION, principal.getId(), text, true, principal.isAdmin()));
 
         Question question = new Question();
         question.setTitle(request.getTitle());
         question.setDescription(request.getDescription());
-        question.setUser(user);
-        question.setPage(page);
+        question.setDescriptionHtml(contentRenderer.renderNow(request.getDescription()));
+        question.setUser(userRepository.getReferenceById(principal.getId()));
+        question.setPage(pageRepository.getReferenceById(request.getPageId()));
+        if (request.getTags() != null) {
+            question.setTags(tagService.resolve(request.getTags()));
+        }
 
         Question savedQuestion = questionRepository.save(question);
-        return convertToResponse(savedQuestion);
+        QuestionResponse response;
+        try {
+            // Writing the tag links bumps the version at flush; flush first so the response carries the stored one
+            questionRepository.flush();
+            response = convertToResponse(savedQuestion);
+        } catch (EntityNotFoundException | DataIntegrityViolationException e) {
+            throw new RuntimeException("Page not found with id: " + request.getPageId());
+        }
+        eventPublisher.publishEvent(new EntityChangedEvent(
+                EntityChangedEvent.QUESTION, savedQuestion.getId(), EntityChangedEvent.CREATED, response));
+        tagIndex.add(savedQuestion.getId(), request.getPageId(), response.getTags());
+        contentScreener.review(ContentScreener.QUESTION, savedQuestion.getId(), principal.getId(), text, true);
+        return response;
     }
 
     @Transactional
-    public QuestionResponse updateQuestion(String id, QuestionRequest request, String userEmail) {
+    public QuestionResponse updateQuestion(String id, QuestionRequest request, UserPrincipal principal,
+                                           Long expectedVersion) {
         Question question = questionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Question not found with id: " + id));
 
-        if (!question.getUser().getEmail().equals(userEmail)) {
+        if (!question.getUser().getId().equals(principal.getId())) {
             throw new RuntimeException("You are not authorized to update this question");
         }
 
+        if (expectedVersion != null && !expectedVersion.equals(question.getVersion())) {
+            throw new PreconditionFailedException("Question has been modified since version " + expectedVersion);
+        }
+
+        String text = screenedText(request);
+        contentScreener.screen(new ContentCheck.Submission(
+                ContentScreener.QUESTION, principal.getId(), text, false, principal.isAdmin()));
+
         question.setTitle(request.getTitle());
-        question.setDescription(request.getDescription());
+        if (!request.getDescription().equals(question.getDescription()) || question.getDescriptionHtml() == null) {
+            question.setDescription(request.getDescription());
+            question.setDescriptionHtml(contentRenderer.renderNow(request.getDescription()));
+        }
+        Set<String> previousTags = tagNames(question);
+        if (request.getTags() != null) {
+            question.setTags(tagService.resolve(request.getTags()));
+        }
 
-        Question updatedQuestion = questionRepository.save(question);
-        return convertToResponse(updatedQuestion);
+        Question updatedQuestion = questionRepository.saveAndFlush(question);
+        QuestionResponse response = convertToResponse(updatedQuestion);
+        Set<String> tags = tagNames(updatedQuestion);
+        if (!tags.equals(previousTags)) {
+            Set<String> removed = new HashSet<>(previousTags);
+            removed.removeAll(tags);
+            Set<String> added = new HashSet<>(tags);
+            added.removeAll(previousTags);
+            tagIndex.retag(id, removed, added);
+        }
+        eventPublisher.publishEvent(new EntityChangedEvent(
+                EntityChangedEvent.QUESTION, id, EntityChangedEvent.UPDATED, response));
+        contentScreener.review(ContentScreener.QUESTION, id, principal.getId(), text, false);
+        return response;
     }
 
-    @Transactional
-    public void deleteQuestion(String id, String userEmail) {
+    /**
+     * Marks one of the question's replies as the accepted answer, or clears
+     * the marker when replyId is null. Only the question's author may do this.
+     * The marker is a flag, not an edit: a version conflict with a concurrent
+     * edit or moderation re-reads the question and applies it again.
+     */
+    public QuestionResponse setAcceptedReply(String id, String replyId, UserPrincipal principal) {
+        return optimisticRetry.execute(() -> applyAcceptedReply(id, replyId, principal));
+    }
+
+    private QuestionResponse applyAcceptedReply(String id, String replyId, UserPrincipal principal) {
         Question question = questionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Question not found with id: " + id));
 
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!question.getUser().getId().equals(principal.getId())) {
+            throw new RuntimeException("Only the author of the question can accept a reply");
+        }
 
-        if (!question.getUser().getEmail().equals(userEmail) && !user.getRole().equals("ADMIN")) {
-            throw new RuntimeException("You are not authorized to delete this question");
+        if (replyId != null && !id.equals(replyRepository.findQuestionIdById(replyId).orElse(null))) {
+            throw new RuntimeException("Reply " + replyId + " does not belong to question " + id);
         }
 
-        questionRepository.deleteById(id);
+        question.setAcceptedReplyId(replyId);
+
+        Question updatedQuestion = questionRepository.saveAndFlush(question);
+        QuestionResponse response = convertToResponse(updatedQuestion);
+        eventPublisher.publishEvent(new EntityChangedEvent(
+                EntityChangedEvent.QUESTION, id, EntityChangedEvent.UPDATED, response));
+        return response;
+    }
+
+    @Transactional
+    public void deleteQuestion(String id, UserPrincipal principal) {
+        LocalDateTime deletedAt = LocalDateTime.now();
+        if (questionRepository.softDeleteById(id, principal.getId(), principal.isAdmin(), deletedAt) == 0) {
+            if (!questionRepository.existsById(id)) {
+                throw new RuntimeException("Question not found with id: " + id);
+            }
+            throw new RuntimeException("You are not authorized to delete this question");
+        }
+        eventPublisher.publishEvent(new TombstoneEvent(TombstoneEvent.QUESTION, id, deletedAt));
+        tagIndex.remove(List.of(id));
     }
 
     private QuestionResponse convertToResponse(Question question) {
+        return convertToResponse(question, question.getReplies().size());
+    }
+
+    private QuestionResponse convertToResponse(Question question, int replyCount) {
         return new QuestionResponse(
                 question.getId(),
                 question.getTitle(),
                 question.getDescription(),
+                question.getDescriptionHtml() != null
+                        ? question.getDescriptionHtml() : contentRenderer.render(question.getDescription()),
                 question.getUser().getId(),
                 question.getUser().getName(),
                 question.getPage().getId(),
                 question.getPage().getName(),
-                question.getReplies().size(),
+                tagNames(question).stream().sorted().toList(),
+                replyCount,
+                question.getScore(),
+                question.getAcceptedReplyId(),
                 question.getCreatedAt(),
-                question.getUpdatedAt()
+                question.getUpdatedAt(),
+                question.getVersion()
         );
     }
+
+    private static String screenedText(QuestionRequest request) {
+        return request.getTitle() + "\n\n" + request.getDescription();
+    }
+
+    private static Set<String> tagNames(Question question) {
+        return question.getTags().stream().map(Tag::getName).collect(Collectors.toSet());
+    }
 }
@@ -0,0 +1,115 @@
+package com.srm.spark.service;
+
+import com.srm.spark.model.RefreshToken;
+import com.srm.spark.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues and rotates refresh tokens. The client gets 256 random bits; only
+ * their SHA-256 is stored, so a leaked table cannot be replayed. Every
+ * refresh consumes the presented token and hands out its successor in the
+ * same family. A consumed token presented again was copied, so its whole
+ * family is revoked and both holders have to log in again.
+ */
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${jwt.refresh-expiration:1209600000}")
+    private long refreshExpirationMillis;
+
+    public record Rotation(String userId, String refreshToken) {
+    }
+
+    /** Starts a new token family, at login or registration. */
+    public String issue(String userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Consumes the token and issues its successor in one transaction, so a
+     * failed issue leaves the old token usable. Rejections still commit: the
+     * family revoked on reuse has to stay revoked.
+     */
+    @Transactional(noRollbackFor = CredentialsExpiredException.class)
+    public Rotation rotate(String token) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new CredentialsExpiredException("Invalid refresh token"));
+        LocalDateTime now = LocalDateTime.now();
+        if (current.getRevokedAt() != null) {
+            int revoked = refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            log.warn("Reuse of a consumed refresh token for user {}, revoked {} tokens of its family",
+                    current.getUserId(), revoked);
+            throw new CredentialsExpiredException("Refresh token has been revoked");
+        }
+        if (current.getExpiresAt().isBefore(now)) {
+            throw new CredentialsExpiredException("Refresh token has expired");
+        }
+        if (refreshTokenRepository.revokeIfActive(current.getId(), now) == 0) {
+            // A concurrent refresh with the same token won
+            throw new CredentialsExpiredException("Refresh token has already been used");
+        }
+        return new Rotation(current.getUserId(), issue(current.getUserId(), current.getFamilyId()));
+    }
+
+    /** Revokes the token's family, i.e. the session it belongs to; unknown tokens are ignored. */
+    public void revokeSession(String token) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+                .ifPresent(current -> refreshTokenRepository.revokeFamily(current.getFamilyId(), LocalDateTime.now()));
+    }
+
+    public int revokeAll(String userId) {
+        return refreshTokenRepository.revokeByUserId(userId, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${spark.auth.revocation.purge-millis:3600000}",
+            initialDelayString = "${spark.auth.revocation.purge-millis:3600000}")
+    public void purgeExpired() {
+        int purged = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired refresh tokens", purged);
+        }
+    }
+
+    private String issue(String userId, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(new RefreshToken(null, hash(token), userId, familyId,
+                now.plus(Duration.ofMillis(refreshExpirationMillis)), now, null));
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
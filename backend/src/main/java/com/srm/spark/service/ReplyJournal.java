@@ -0,0 +1,232 @@
+package com.srm.spark.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Append-only log of acknowledged replies that have not been committed to
+ * the database yet, one JSON document per line. The log is split into
+ * segment files (path.1, path.2, ...) of about segmentBytes each, and a
+ * segment is deleted once the writer has committed everything in it, so the
+ * journal stays bounded under sustained load instead of waiting for the
+ * queue to drain.
+ *
+ * {@link #append} only writes; {@link #sync} makes an append durable. Sync
+ * is a group commit: one force covers everything appended so far, and
+ * callers that queued behind a running force usually find their entry
+ * already covered by it, so concurrent posters share fsyncs instead of
+ * paying one each.
+ */
+class ReplyJournal implements AutoCloseable {
+
+    private final Path path;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private final Object syncLock = new Object();
+    private long current;
+    private FileChannel channel;
+    private long appended;
+    private long synced;
+
+    ReplyJournal(Path path, long segmentBytes, boolean fsync, ObjectMapper objectMapper) throws IOException {
+        this.path = path;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // A single-file journal from before segmenting replays as the oldest segment
+        if (Files.exists(path)) {
+            segments.put(0L, path);
+        }
+        segments.putAll(existingSegments(path));
+        current = segments.isEmpty() ? 0 : segments.lastKey();
+    }
+
+    /** Whether a journal (segmented or not) exists at the path. */
+    static boolean exists(Path path) throws IOException {
+        return Files.exists(path) || !existingSegments(path).isEmpty();
+    }
+
+    record Appended(long segment, long sequence) {
+    }
+
+    /** Writes the reply without forcing it to disk; pass the result's sequence to {@link #sync}. */
+    synchronized Appended append(PendingReply reply) {
+        try {
+            if (channel == null || channel.size() >= segmentBytes) {
+                roll();
+            }
+            byte[] line = (objectMapper.writeValueAsString(reply) + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return new Appended(current, ++appended);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to reply journal " + path, e);
+        }
+    }
+
+    /** Returns once the append with the given sequence, and every one before it, is on disk. */
+    void sync(long sequence) {
+        if (!fsync) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+            synchronized (this) {
+                try {
+                    // Older segments were forced when they were rolled
+                    if (channel != null) {
+                        channel.force(false);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to sync reply journal " + path, e);
+                }
+                synced = appended;
+            }
+        }
+    }
+
+    /**
+     * Reads every entry in the journal, oldest segment first. A torn last line
+     * from a crash mid-write is skipped; it was never acknowledged to the client.
+     */
+    synchronized List<PendingReply> readAll() throws IOException {
+        List<PendingReply> entries = new ArrayList<>();
+        for (Path segment : segments.values()) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        entries.add(objectMapper.readValue(line, PendingReply.class));
+                    } catch (IOException e) {
+                        break;
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /** Deletes the segments before the given one, whose entries have all been committed. */
+    synchronized void release(long segment) {
+        Iterator<Map.Entry<Long, Path>> closed = segments.headMap(Math.min(segment, current)).entrySet().iterator();
+        while (closed.hasNext()) {
+            delete(closed.next().getValue());
+            closed.remove();
+        }
+    }
+
+    /** Drops every entry; called once all of them have been committed. */
+    synchronized void truncate() {
+        release(current);
+        try {
+            if (channel != null) {
+                channel.truncate(0);
+                if (fsync) {
+                    channel.force(false);
+                }
+            } else if (segments.containsKey(current)) {
+                delete(segments.remove(current));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to truncate reply journal " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        boolean empty = channel.size() == 0;
+        channel.close();
+        channel = null;
+        if (empty) {
+            delete(segments.remove(current));
+        }
+    }
+
+    private void roll() throws IOException {
+        if (channel != null) {
+            if (fsync) {
+                channel.force(false);
+            }
+            channel.close();
+        }
+        current++;
+        Path segment = path.resolveSibling(path.getFileName() + "." + current);
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segments.put(current, segment);
+    }
+
+    private void delete(Path segment) {
+        try {
+            Files.deleteIfExists(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete reply journal segment " + segment, e);
+        }
+    }
+
+    private static Map<Long, Path> existingSegments(Path path) throws IOException {
+        Map<Long, Path> found = new TreeMap<>();
+        Path dir = path.toAbsolutePath().getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return found;
+        }
+        String prefix = path.getFileName() + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*")) {
+            for (Path file : files) {
+                String suffix = file.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                    found.put(Long.parseLong(suffix), path.resolveSibling(file.getFileName()));
+                }
+            }
+        }
+        return found;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class PendingReply {
+        private String id;
+        private String questionId;
+        private String userId;
+        private String userName;
+        private String content;
+        private String contentHtml;
+        private LocalDateTime createdAt;
+    }
+}
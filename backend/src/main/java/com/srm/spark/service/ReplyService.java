@@ -2,17 +2,26 @@ package com.srm.spark.service;
 
 import com.srm.spark.dto.ReplyRequest;
 import com.srm.spark.dto.ReplyResponse;
-import com.srm.spark.model.Question;
+import com.srm.spark.event.EntityChangedEvent;
+import com.srm.spark.event.TombstoneEvent;
+import com.srm.spark.exception.PreconditionFailedException;
 import com.srm.spark.model.Reply;
-import com.srm.spark.model.User;
 import com.srm.spark.repository.QuestionRepository;
 import com.srm.spark.repository.ReplyRepository;
 import com.srm.spark.repository.UserRepository;
+import com.srm.spark.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,69 +31,154 @@ public class ReplyService {
     private final ReplyRepository replyRepository;
     private final QuestionRepository questionRepository;
     private final UserRepository userRepository;
-
-    public List<ReplyResponse> getRepliesByQuestion(String questionId) {
-        return replyRepository.findByQuestionId(questionId).stream()
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReplyWriteBehindService replyWriteBehindService;
+    private final ContentRenderer contentRenderer;
+    private final ArchiveStore archiveStore;
+    private final ContentScreener contentScreener;
+    private final TransactionTemplate transactionTemplate;
+
+    public List<ReplyResponse> getRepliesByQuestion(String questionId, boolean byScore) {
+        List<Reply> replies = byScore
+                ? replyRepository.findByQuestionIdOrderByScore(questionId)
+                : replyRepository.findByQuestionId(questionId);
+        return replies.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
     }
 
-    @Transactional
-    public ReplyResponse createReply(String questionId, ReplyRequest request, String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    /** Replies of an archived question, in the same orders as {@link #getRepliesByQuestion}; empty if not archived. */
+    public List<ReplyResponse> getArchivedReplies(String questionId, boolean byScore) {
+        return archiveStore.findThread(questionId)
+                .map(thread -> thread.getReplies().stream()
+                        .sorted(byScore
+                                ? Comparator.comparing((ReplyResponse reply) -> !reply.isAccepted())
+                                        .thenComparing(ReplyResponse::getScore, Comparator.reverseOrder())
+                                        .thenComparing(ReplyResponse::getCreatedAt)
+                                : Comparator.comparing(ReplyResponse::getCreatedAt))
+                        .collect(Collectors.toList()))
+                .orElse(List.of());
+    }
 
-        Question question = questionRepository.findById(questionId)
-                .orElseThrow(() -> new RuntimeException("Question not found with id: " + questionId));
+    /**
+     * Replies of several questions in one query, grouped by question id in
+     * creation order.
+     */
+    public Map<String, List<ReplyResponse>> getRepliesByQuestions(Collection<String> questionIds) {
+        return replyRepository.findAllWithUserByQuestionIdIn(questionIds).stream()
+                .collect(Collectors.groupingBy(reply -> reply.getQuestion().getId(),
+                        Collectors.mapping(this::convertToResponse, Collectors.toList())));
+    }
+
+    public Optional<QuestionRepository.Stamp> getRepliesStamp(String questionId) {
+        return questionRepository.findStampById(questionId);
+    }
+
+    /**
+     * Creates a reply. With write-behind the reply is validated by one
+     * autocommit read and journaled outside any transaction, so no pooled
+     * connection is held while the journal syncs; otherwise it is inserted in
+     * a transaction of its own.
+     */
+    public ReplyResponse createReply(String questionId, ReplyRequest request, UserPrincipal principal) {
+        if (replyWriteBehindService.isEnabled()) {
+            if (!replyWriteBehindService.questionExists(questionId)) {
+                throw new RuntimeException("Question not found with id: " + questionId);
+            }
+            ContentCheck.Submission submission = new ContentCheck.Submission(
+                    ContentScreener.REPLY, principal.getId(), request.getContent(), true, principal.isAdmin());
+            contentScreener.screen(submission);
+            try {
+                // The writer queues the spam review once the reply's batch commits
+                return replyWriteBehindService.submit(questionId, principal.getId(), principal.getName(),
+                        request.getContent(), contentRenderer.renderNow(request.getContent()));
+            } catch (RuntimeException e) {
+                contentScreener.release(submission);
+                throw e;
+            }
+        }
+        return transactionTemplate.execute(status -> insertReply(questionId, request, principal));
+    }
+
+    private ReplyResponse insertReply(String questionId, ReplyRequest request, UserPrincipal principal) {
+        if (!questionRepository.existsById(questionId)) {
+            throw new RuntimeException("Question not found with id: " + questionId);
+        }
+        contentScreener.screen(new ContentCheck.Submission(
+                ContentScreener.REPLY, principal.getId(), request.getContent(), true, principal.isAdmin()));
 
         Reply reply = new Reply();
         reply.setContent(request.getContent());
-        reply.setQuestion(question);
-        reply.setUser(user);
+        reply.setContentHtml(contentRenderer.renderNow(request.getContent()));
+        reply.setQuestion(questionRepository.getReferenceById(questionId));
+        reply.setUser(userRepository.getReferenceById(principal.getId()));
 
         Reply savedReply = replyRepository.save(reply);
-        return convertToResponse(savedReply);
+        ReplyResponse response = convertToResponse(savedReply, false);
+        eventPublisher.publishEvent(new EntityChangedEvent(
+                EntityChangedEvent.REPLY, savedReply.getId(), EntityChangedEvent.CREATED, response));
+        contentScreener.review(ContentScreener.REPLY, savedReply.getId(), principal.getId(), request.getContent(), true);
+        return response;
     }
 
     @Transactional
-    public ReplyResponse updateReply(String id, ReplyRequest request, String userEmail) {
+    public ReplyResponse updateReply(String id, ReplyRequest request, UserPrincipal principal, Long expectedVersion) {
         Reply reply = replyRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Reply not found with id: " + id));
 
-        if (!reply.getUser().getEmail().equals(userEmail)) {
+        if (!reply.getUser().getId().equals(principal.getId())) {
             throw new RuntimeException("You are not authorized to update this reply");
         }
 
-        reply.setContent(request.getContent());
+        if (expectedVersion != null && !expectedVersion.equals(reply.getVersion())) {
+            throw new PreconditionFailedException("Reply has been modified since version " + expectedVersion);
+        }
+        contentScreener.screen(new ContentCheck.Submission(
+                ContentScreener.REPLY, principal.getId(), request.getContent(), false, principal.isAdmin()));
+
+        if (!request.getContent().equals(reply.getContent()) || reply.getContentHtml() == null) {
+            reply.setContent(request.getContent());
+            reply.setContentHtml(contentRenderer.renderNow(request.getContent()));
+        }
 
-        Reply updatedReply = replyRepository.save(reply);
-        return convertToResponse(updatedReply);
+        Reply updatedReply = replyRepository.saveAndFlush(reply);
+        ReplyResponse response = convertToResponse(updatedReply);
+        eventPublisher.publishEvent(new EntityChangedEvent(
+                EntityChangedEvent.REPLY, id, EntityChangedEvent.UPDATED, response));
+        contentScreener.review(ContentScreener.REPLY, id, principal.getId(), request.getContent(), false);
+        return response;
     }
 
     @Transactional
-    public void deleteReply(String id, String userEmail) {
-        Reply reply = replyRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Reply not found with id: " + id));
-
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (!reply.getUser().getEmail().equals(userEmail) && !user.getRole().equals("ADMIN")) {
+    public void deleteReply(String id, UserPrincipal principal) {
+        LocalDateTime deletedAt = LocalDateTime.now();
+        if (replyRepository.softDeleteById(id, principal.getId(), principal.isAdmin(), deletedAt) == 0) {
+            if (!replyRepository.existsById(id)) {
+                throw new RuntimeException("Reply not found with id: " + id);
+            }
             throw new RuntimeException("You are not authorized to delete this reply");
         }
-
-        replyRepository.deleteById(id);
+        questionRepository.clearAcceptedReply(id, deletedAt);
+        eventPublisher.publishEvent(new TombstoneEvent(TombstoneEvent.REPLY, id, deletedAt));
     }
 
     private ReplyResponse convertToResponse(Reply reply) {
+        return convertToResponse(reply, reply.getId().equals(reply.getQuestion().getAcceptedReplyId()));
+    }
+
+    private ReplyResponse convertToResponse(Reply reply, boolean accepted) {
         return new ReplyResponse(
                 reply.getId(),
                 reply.getContent(),
+                reply.getContentHtml() != null ? reply.getContentHtml() : contentRenderer.render(reply.getContent()),
                 reply.getQuestion().getId(),
                 reply.getUser().getId(),
                 reply.getUser().getName(),
+                reply.getScore(),
+                accepted,
                 reply.getCreatedAt(),
-                reply.getUpdatedAt()
+                reply.getUpdatedAt(),
+                reply.getVersion()
         );
     }
 }
@@ -0,0 +1,347 @@
+package com.srm.spark.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srm.spark.dto.ReplyResponse;
+import com.srm.spark.event.EntityChangedEvent;
+import com.srm.spark.service.ReplyJournal.Appended;
+import com.srm.spark.service.ReplyJournal.PendingReply;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind path for reply creation. Validated replies are
+ * journaled, acknowledged with their final id and queued in a bounded buffer;
+ * a single writer thread commits them in batched JDBC inserts. Journal
+ * segments are deleted as the writer commits past them, and each committed
+ * reply is queued for {@link ContentScreener#review}. Entries still in the
+ * journal at startup (after a crash) are replayed before the web server
+ * accepts requests.
+ *
+ * A batch that fails to commit is retried until it succeeds; meanwhile the
+ * queue fills up and new replies are refused. Writer health, including the
+ * current failure, is reported as "replyWriteBehind" under /actuator/health.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+@RegisterReflectionForBinding(PendingReply.class)
+public class ReplyWriteBehindService implements SmartLifecycle, HealthIndicator {
+
+    private static final String INSERT_SQL = "INSERT INTO replies "
+            + "(id, content, content_html, question_id, user_id, created_at, updated_at, version, deleted) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, 0, false)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ContentScreener contentScreener;
+    private final Object lock = new Object();
+
+    @Value("${spark.replies.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${spark.replies.write-behind.queue-capacity:4096}")
+    private int queueCapacity;
+
+    @Value("${spark.replies.write-behind.batch-size:256}")
+    private int batchSize;
+
+    @Value("${spark.replies.write-behind.journal-path:./data/reply-journal.log}")
+    private String journalPath;
+
+    @Value("${spark.replies.write-behind.journal-segment-bytes:4194304}")
+    private long journalSegmentBytes;
+
+    @Value("${spark.replies.write-behind.fsync:true}")
+    private boolean fsync;
+
+    private BlockingQueue<Journaled> queue;
+    private ReplyJournal journal;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile String lastFailure;
+    private volatile LocalDateTime failingSince;
+
+    public ReplyWriteBehindService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                                   ContentScreener contentScreener) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.contentScreener = contentScreener;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the question exists, in one autocommit read. Deliberately not
+     * through JPA: with open-in-view the request's EntityManager would keep
+     * the connection until the response is written.
+     */
+    public boolean questionExists(String questionId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM questions WHERE id = ? AND deleted = false", Integer.class, questionId);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Journals and queues a reply whose user and question have already been
+     * validated, returning the response the client will see once it commits.
+     * Runs outside any transaction; the only wait is the journal's group fsync.
+     */
+    public ReplyResponse submit(String questionId, String userId, String userName, String content,
+                                String contentHtml) {
+        if (!running || !writer.isAlive()) {
+            throw new RuntimeException("Reply writer is not running");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        PendingReply pending = new PendingReply(
+                UUID.randomUUID().toString(), questionId, userId, userName, content, contentHtml, now);
+
+        Appended appended;
+        synchronized (lock) {
+            if (queue.remainingCapacity() == 0) {
+                throw new RuntimeException("Too many replies are being posted right now, please try again");
+            }
+            appended = journal.append(pending);
+            queue.add(new Journaled(pending, appended.segment()));
+        }
+        // Outside the lock, so replies submitted meanwhile share this fsync
+        journal.sync(appended.sequence());
+
+        return toResponse(pending);
+    }
+
+    @Override
+    public void start() {
+        Path path = Path.of(journalPath);
+        try {
+            if (!enabled && !ReplyJournal.exists(path)) {
+                return;
+            }
+            journal = new ReplyJournal(path, journalSegmentBytes, fsync, objectMapper);
+            recover();
+            if (!enabled) {
+                // Replay leftovers from a previous write-behind run, then stay out of the way
+                journal.close();
+                return;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open reply journal " + journalPath, e);
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "reply-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Reply write-behind enabled (capacity {}, batch size {}, journal {})",
+                queueCapacity, batchSize, journalPath);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Failed to close reply journal", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public Health health() {
+        if (!enabled) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        Health.Builder health = running && writer.isAlive() && failingSince == null ? Health.up() : Health.down();
+        health.withDetail("writerAlive", writer != null && writer.isAlive())
+                .withDetail("queued", queue == null ? 0 : queue.size());
+        if (failingSince != null) {
+            health.withDetail("failingSince", failingSince).withDetail("lastFailure", lastFailure);
+        }
+        return health.build();
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before the web server so the journal is replayed before new replies arrive
+        return 0;
+    }
+
+    private void recover() throws IOException {
+        List<PendingReply> entries = journal.readAll();
+        if (entries.isEmpty()) {
+            return;
+        }
+        Set<String> committed = new HashSet<>();
+        for (int i = 0; i < entries.size(); i += batchSize) {
+            List<String> ids = entries.subList(i, Math.min(i + batchSize, entries.size())).stream()
+                    .map(PendingReply::getId)
+                    .toList();
+            String placeholders = String.join(",", ids.stream().map(id -> "?").toList());
+            committed.addAll(jdbcTemplate.queryForList(
+                    "SELECT id FROM replies WHERE id IN (" + placeholders + ")", String.class, ids.toArray()));
+        }
+        List<PendingReply> missing = entries.stream()
+                .filter(entry -> !committed.contains(entry.getId()))
+                .toList();
+        for (int i = 0; i < missing.size(); i += batchSize) {
+            insertIndividually(missing.subList(i, Math.min(i + batchSize, missing.size())));
+        }
+        journal.truncate();
+        log.info("Replayed {} journaled replies ({} already committed)",
+                missing.size(), entries.size() - missing.size());
+    }
+
+    private void writeLoop() {
+        List<Journaled> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Journaled first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (!commit(batch.stream().map(Journaled::reply).toList())) {
+                    // Leave the journal intact so the batch is replayed on restart
+                    return;
+                }
+                releaseJournal(batch.get(batch.size() - 1).segment());
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | Error e) {
+                // Whatever is left stays journaled and is replayed on restart; submit refuses new replies
+                lastFailure = e.toString();
+                if (failingSince == null) {
+                    failingSince = LocalDateTime.now();
+                }
+                log.error("Reply writer stopped with {} replies queued", batch.size() + queue.size(), e);
+                throw e;
+            }
+        }
+    }
+
+    private boolean commit(List<PendingReply> batch) throws InterruptedException {
+        while (true) {
+            try {
+                try {
+                    insertBatch(batch);
+                } catch (DataIntegrityViolationException e) {
+                    // A question was purged after validation; commit the rest one by one
+                    insertIndividually(batch);
+                }
+                failingSince = null;
+                lastFailure = null;
+                return true;
+            } catch (RuntimeException e) {
+                // Not only database errors: the outbox listener and payload serialization run in the batch too
+                lastFailure = e.toString();
+                if (failingSince == null) {
+                    failingSince = LocalDateTime.now();
+                }
+                if (!running) {
+                    log.error("Giving up on {} queued replies during shutdown; they stay journaled", batch.size(), e);
+                    return false;
+                }
+                log.warn("Failed to commit {} replies, retrying", batch.size(), e);
+                Thread.sleep(1000);
+            }
+        }
+    }
+
+    private void insertBatch(List<PendingReply> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, reply) -> {
+                Timestamp createdAt = Timestamp.valueOf(reply.getCreatedAt());
+                ps.setString(1, reply.getId());
+                ps.setString(2, reply.getContent());
+                ps.setString(3, reply.getContentHtml());
+                ps.setString(4, reply.getQuestionId());
+                ps.setString(5, reply.getUserId());
+                ps.setTimestamp(6, createdAt);
+                ps.setTimestamp(7, createdAt);
+            });
+            for (PendingReply reply : batch) {
+                eventPublisher.publishEvent(new EntityChangedEvent(
+                        EntityChangedEvent.REPLY, reply.getId(), EntityChangedEvent.CREATED, toResponse(reply)));
+                // Queued after this batch commits, so the row exists when the scorer hides it
+                contentScreener.review(ContentScreener.REPLY, reply.getId(), reply.getUserId(), reply.getContent(), true);
+            }
+        });
+    }
+
+    private ReplyResponse toResponse(PendingReply reply) {
+        return new ReplyResponse(reply.getId(), reply.getContent(), reply.getContentHtml(), reply.getQuestionId(), reply.getUserId(),
+                reply.getUserName(), 0, false, reply.getCreatedAt(), reply.getCreatedAt(), 0L);
+    }
+
+    private void insertIndividually(List<PendingReply> replies) {
+        for (PendingReply reply : replies) {
+            try {
+                insertBatch(List.of(reply));
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Dropping reply {} for question {}: {}", reply.getId(), reply.getQuestionId(),
+                        e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    // The queue is in journal order, so every segment before the last committed entry's is done
+    private void releaseJournal(long committedSegment) {
+        synchronized (lock) {
+            if (queue.isEmpty()) {
+                journal.truncate();
+            } else {
+                journal.release(committedSegment);
+            }
+        }
+    }
+
+    private record Journaled(PendingReply reply, long segment) {
+    }
+}
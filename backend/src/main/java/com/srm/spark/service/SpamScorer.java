@@ -0,0 +1,148 @@
+package com.srm.spark.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The slower, after-the-fact spam heuristics of {@link ContentScreener}.
+ * Each signal adds to a score and names itself as a reason:
+ * near-duplicates of the author's recent posts (Jaccard similarity of word
+ * 3-shingles), link density, shouting, long character runs, and terms from
+ * spark.moderation.suspicious-terms. The screener hides posts whose total
+ * reaches its threshold, which one weak signal alone does not. Edits are
+ * not compared with the author's history, which holds the original post.
+ *
+ * Not thread-safe: the screener calls it from its single review thread, which
+ * also owns the per-author history.
+ */
+@Component
+public class SpamScorer {
+
+    private static final int SHINGLE_SIZE = 3;
+    private static final int HISTORY_PER_AUTHOR = 20;
+    private static final int MAX_AUTHORS = 10_000;
+
+    private final AhoCorasick suspiciousTerms;
+    private final double duplicateSimilarity;
+
+    // Shingle sets of each author's latest posts, least recently posting authors evicted first
+    private final Map<String, Deque<Set<Long>>> history = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Deque<Set<Long>>> eldest) {
+            return size() > MAX_AUTHORS;
+        }
+    };
+
+    public record Score(double value, List<String> reasons) {
+    }
+
+    public SpamScorer(@Value("${spark.moderation.suspicious-terms:}") List<String> suspiciousTerms,
+                      @Value("${spark.moderation.duplicate-similarity:0.8}") double duplicateSimilarity) {
+        this.suspiciousTerms = new AhoCorasick(suspiciousTerms);
+        this.duplicateSimilarity = duplicateSimilarity;
+    }
+
+    public Score score(String userId, String text, boolean created) {
+        double score = 0;
+        List<String> reasons = new ArrayList<>();
+
+        if (created) {
+            Set<Long> shingles = shingles(text);
+            Deque<Set<Long>> recent = history.computeIfAbsent(userId, key -> new ArrayDeque<>());
+            if (!shingles.isEmpty() && recent.stream().anyMatch(seen -> jaccard(seen, shingles) >= duplicateSimilarity)) {
+                score += 0.6;
+                reasons.add("duplicate");
+            }
+            recent.addFirst(shingles);
+            if (recent.size() > HISTORY_PER_AUTHOR) {
+                recent.removeLast();
+            }
+        }
+
+        int words = text.split("\\s+").length;
+        int links = PostingRateCheck.countLinks(text);
+        if (links > 0 && links * 10 > words) {
+            score += 0.4;
+            reasons.add("links");
+        }
+
+        int letters = 0;
+        int upper = 0;
+        int run = 1;
+        int longestRun = 1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetter(c)) {
+                letters++;
+                if (Character.isUpperCase(c)) {
+                    upper++;
+                }
+            }
+            run = i > 0 && c == text.charAt(i - 1) && !Character.isWhitespace(c) ? run + 1 : 1;
+            longestRun = Math.max(longestRun, run);
+        }
+        if (letters >= 20 && upper > letters * 0.7) {
+            score += 0.2;
+            reasons.add("shouting");
+        }
+        if (longestRun >= 10) {
+            score += 0.2;
+            reasons.add("repetition");
+        }
+
+        int suspicious = suspiciousTerms.find(text, 4).size();
+        if (suspicious > 0) {
+            score += 0.3 * suspicious;
+            reasons.add("terms");
+        }
+        return new Score(score, reasons);
+    }
+
+    private static Set<Long> shingles(String text) {
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        Set<Long> shingles = new HashSet<>();
+        List<String> window = new ArrayList<>(SHINGLE_SIZE);
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            window.add(word);
+            if (window.size() > SHINGLE_SIZE) {
+                window.remove(0);
+            }
+            if (window.size() == SHINGLE_SIZE) {
+                long hash = 1125899906842597L;
+                for (String part : window) {
+                    hash = 31 * hash + part.hashCode();
+                }
+                shingles.add(hash);
+            }
+        }
+        return shingles;
+    }
+
+    private static double jaccard(Set<Long> a, Set<Long> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        Set<Long> smaller = a.size() <= b.size() ? a : b;
+        Set<Long> larger = smaller == a ? b : a;
+        int common = 0;
+        for (Long shingle : smaller) {
+            if (larger.contains(shingle)) {
+                common++;
+            }
+        }
+        return (double) common / (a.size() + b.size() - common);
+    }
+}
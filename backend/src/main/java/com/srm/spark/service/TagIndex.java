@@ -0,0 +1,296 @@
+package com.srm.spark.service;
+
+import com.srm.spark.cluster.ClusterBus;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index from tags and pages to questions, held as
+ * compressed (Roaring) bitmaps so AND/OR filters over any tag combination
+ * are a few word-wide bitmap operations instead of join queries.
+ *
+ * Questions are numbered densely in creation order, so walking a result
+ * bitmap backwards yields newest-first without sorting; the feed only asks
+ * the database for the one page of ids it is about to return. Deleted
+ * questions are cleared from a "live" bitmap that every query is ANDed with.
+ * The index is rebuilt from question_tags at startup, before the web server
+ * accepts requests, and updated only after the writing transaction commits.
+ * Changes are broadcast over the {@link ClusterBus}, so every instance's
+ * index follows writes made on the others.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class TagIndex implements SmartLifecycle {
+
+    private static final String TOPIC = "tags";
+    // Keeps a removal message under PostgreSQL's 8000-byte NOTIFY payload limit
+    private static final int MAX_IDS_PER_MESSAGE = 150;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterBus clusterBus;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> questionIds = new ArrayList<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> byTag = new HashMap<>();
+    private final Map<String, RoaringBitmap> byPage = new HashMap<>();
+    private volatile boolean running;
+
+    // One change to the index, as broadcast to the other instances
+    public record Change(String op, List<String> questionIds, String pageId, List<String> tags,
+                         List<String> removedTags) {
+    }
+
+    public TagIndex(JdbcTemplate jdbcTemplate, ClusterBus clusterBus) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterBus = clusterBus;
+        clusterBus.subscribe(TOPIC, Change.class, this::apply);
+        clusterBus.onResync(this::reload);
+    }
+
+    /** Indexes a new question once the current transaction commits. */
+    public void add(String questionId, String pageId, Collection<String> tags) {
+        commit(new Change("add", List.of(questionId), pageId, List.copyOf(tags), List.of()));
+    }
+
+    /** Moves a question from the removed tags to the added ones once the current transaction commits. */
+    public void retag(String questionId, Collection<String> removed, Collection<String> added) {
+        commit(new Change("retag", List.of(questionId), null, List.copyOf(added), List.copyOf(removed)));
+    }
+
+    /** Drops deleted questions once the current transaction commits. */
+    public void remove(Collection<String> ids) {
+        List<String> removed = List.copyOf(ids);
+        afterCommit(() -> apply(new Change("remove", removed, null, List.of(), List.of())));
+        for (int from = 0; from < removed.size(); from += MAX_IDS_PER_MESSAGE) {
+            List<String> chunk = removed.subList(from, Math.min(from + MAX_IDS_PER_MESSAGE, removed.size()));
+            clusterBus.publish(TOPIC, new Change("remove", chunk, null, List.of(), List.of()));
+        }
+    }
+
+    private void commit(Change change) {
+        afterCommit(() -> apply(change));
+        clusterBus.publish(TOPIC, change);
+    }
+
+    private void apply(Change change) {
+        write(() -> {
+            switch (change.op()) {
+                case "add" -> {
+                    int ordinal = ordinalFor(change.questionIds().get(0));
+                    live.add(ordinal);
+                    byPage.computeIfAbsent(change.pageId(), key -> new RoaringBitmap()).add(ordinal);
+                    change.tags().forEach(tag -> byTag.computeIfAbsent(tag, key -> new RoaringBitmap()).add(ordinal));
+                }
+                case "retag" -> {
+                    Integer ordinal = ordinals.get(change.questionIds().get(0));
+                    if (ordinal == null) {
+                        return;
+                    }
+                    for (String tag : change.removedTags()) {
+                        RoaringBitmap questions = byTag.get(tag);
+                        if (questions != null) {
+                            questions.remove(ordinal);
+                        }
+                    }
+                    change.tags().forEach(tag -> byTag.computeIfAbsent(tag, key -> new RoaringBitmap()).add(ordinal));
+                }
+                case "remove" -> {
+                    for (String id : change.questionIds()) {
+                        Integer ordinal = ordinals.remove(id);
+                        if (ordinal != null) {
+                            live.remove(ordinal);
+                            questionIds.set(ordinal, null);
+                        }
+                    }
+                }
+                default -> log.warn("Ignoring unknown tag index change {}", change.op());
+            }
+        });
+    }
+
+    /**
+     * Ids of live questions carrying all (or any) of the tags, optionally
+     * limited to one page, newest first, skipping offset and returning at
+     * most limit ids.
+     */
+    public List<String> find(Collection<String> tags, boolean matchAll, String pageId, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> filters = new ArrayList<>();
+            for (String tag : tags) {
+                RoaringBitmap questions = byTag.get(tag);
+                if (questions != null) {
+                    filters.add(questions);
+                } else if (matchAll) {
+                    return List.of();
+                }
+            }
+            if (filters.isEmpty()) {
+                return List.of();
+            }
+            // The static operations allocate the result, so indexed bitmaps are never modified here.
+            // Smallest sets are intersected first and the dense live/page sets last, on the smallest result.
+            RoaringBitmap result;
+            if (matchAll) {
+                filters.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+                result = filters.size() == 1
+                        ? RoaringBitmap.and(filters.get(0), live)
+                        : RoaringBitmap.and(filters.get(0), filters.get(1));
+                for (int i = 2; i < filters.size() && !result.isEmpty(); i++) {
+                    result.and(filters.get(i));
+                }
+            } else {
+                result = FastAggregation.or(filters.iterator());
+            }
+            if (pageId != null) {
+                result.and(byPage.getOrDefault(pageId, new RoaringBitmap()));
+            }
+            result.and(live);
+
+            List<String> ids = new ArrayList<>(Math.min(limit, result.getCardinality()));
+            IntIterator newestFirst = result.getReverseIntIterator();
+            for (int skipped = 0; skipped < offset && newestFirst.hasNext(); skipped++) {
+                newestFirst.next();
+            }
+            while (ids.size() < limit && newestFirst.hasNext()) {
+                ids.add(questionIds.get(newestFirst.next()));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Live question counts per tag, optionally within one page, most used first. Unused tags are left out. */
+    public Map<String, Integer> countByTag(String pageId, int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap scope = pageId == null
+                    ? live
+                    : RoaringBitmap.and(live, byPage.getOrDefault(pageId, new RoaringBitmap()));
+            Map<String, Integer> counts = new HashMap<>();
+            byTag.forEach((tag, questions) -> {
+                int count = RoaringBitmap.andCardinality(questions, scope);
+                if (count > 0) {
+                    counts.put(tag, count);
+                }
+            });
+            Map<String, Integer> top = new LinkedHashMap<>();
+            counts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        reload();
+        running = true;
+    }
+
+    /** Rebuilds the index from the database. */
+    public void reload() {
+        long started = System.nanoTime();
+        write(() -> {
+            ordinals.clear();
+            questionIds.clear();
+            live.clear();
+            byTag.clear();
+            byPage.clear();
+            jdbcTemplate.query("SELECT id, page_id FROM questions WHERE deleted = false ORDER BY created_at, id",
+                    row -> {
+                        int ordinal = ordinalFor(row.getString(1));
+                        live.add(ordinal);
+                        byPage.computeIfAbsent(row.getString(2), key -> new RoaringBitmap()).add(ordinal);
+                    });
+            jdbcTemplate.query("SELECT qt.question_id, t.name FROM question_tags qt JOIN tags t ON t.id = qt.tag_id",
+                    row -> {
+                        Integer ordinal = ordinals.get(row.getString(1));
+                        if (ordinal != null) {
+                            byTag.computeIfAbsent(row.getString(2), key -> new RoaringBitmap()).add(ordinal);
+                        }
+                    });
+            // Switch dense ranges to run containers now that the bulk load is done
+            live.runOptimize();
+            byTag.values().forEach(RoaringBitmap::runOptimize);
+            byPage.values().forEach(RoaringBitmap::runOptimize);
+        });
+        log.info("Indexed {} questions under {} tags in {} ms", live.getCardinality(), byTag.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Load before the web server so no request sees a partial index
+        return 0;
+    }
+
+    private int ordinalFor(String questionId) {
+        Integer ordinal = ordinals.get(questionId);
+        if (ordinal == null) {
+            ordinal = questionIds.size();
+            questionIds.add(questionId);
+            ordinals.put(questionId, ordinal);
+        }
+        return ordinal;
+    }
+
+    private void write(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package com.srm.spark.service;
+
+import com.srm.spark.dto.TagResponse;
+import com.srm.spark.model.Tag;
+import com.srm.spark.repository.TagRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class TagService {
+
+    public static final int MAX_TAGS_PER_QUESTION = 5;
+    private static final Pattern TAG_NAME = Pattern.compile("[a-z0-9][a-z0-9+#.-]{0,31}");
+    private static final String INSERT_IF_ABSENT_SQL = "INSERT INTO tags (name, created_at) SELECT ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM tags WHERE name = ?)";
+
+    private final TagRepository tagRepository;
+    private final TagIndex tagIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final OptimisticRetry optimisticRetry;
+
+    /**
+     * Normalizes tag names ("#Java " becomes "java") and rejects malformed
+     * ones; duplicates collapse, order is kept.
+     */
+    public Set<String> normalize(Collection<String> names) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String name : names) {
+            String tag = name == null ? "" : name.strip().toLowerCase(Locale.ROOT);
+            if (tag.startsWith("#")) {
+                tag = tag.substring(1);
+            }
+            if (!TAG_NAME.matcher(tag).matches()) {
+                throw new RuntimeException("Invalid tag '" + name + "': use up to 32 letters, digits or + # . -");
+            }
+            normalized.add(tag);
+        }
+        return normalized;
+    }
+
+    /** Tag entities for the given names, creating the ones that don't exist yet. */
+    public Set<Tag> resolve(Collection<String> names) {
+        Set<String> normalized = normalize(names);
+        if (normalized.size() > MAX_TAGS_PER_QUESTION) {
+            throw new RuntimeException("A question can have at most " + MAX_TAGS_PER_QUESTION + " tags");
+        }
+        if (normalized.isEmpty()) {
+            return new HashSet<>();
+        }
+        Set<Tag> tags = new HashSet<>(tagRepository.findByNameIn(normalized));
+        if (tags.size() < normalized.size()) {
+            Set<String> existing = tags.stream().map(Tag::getName).collect(Collectors.toSet());
+            createMissing(normalized.stream().filter(name -> !existing.contains(name)).toList());
+            tags = new HashSet<>(tagRepository.findByNameIn(normalized));
+        }
+        return tags;
+    }
+
+    /**
+     * Inserts the tags as one batch in a transaction of their own, so a
+     * duplicate key never poisons the caller's transaction. Two questions
+     * introducing the same tag at once can both pass NOT EXISTS; the loser
+     * retries once and then skips the tag the winner committed.
+     */
+    private void createMissing(List<String> names) {
+        Runnable insert = () -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, names, names.size(), (ps, name) -> {
+                ps.setString(1, name);
+                ps.setTimestamp(2, now);
+                ps.setString(3, name);
+            });
+        };
+        try {
+            optimisticRetry.run(insert);
+        } catch (DataIntegrityViolationException e) {
+            optimisticRetry.run(insert);
+        }
+    }
+
+    /** Most used tags, across all pages or within one. */
+    public List<TagResponse> getPopularTags(String pageId, int limit) {
+        return tagIndex.countByTag(pageId, limit).entrySet().stream()
+                .map(entry -> new TagResponse(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+}
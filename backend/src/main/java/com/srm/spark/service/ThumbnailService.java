@@ -0,0 +1,99 @@
+package com.srm.spark.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Renders JPEG thumbnails for image attachments off the request thread.
+ * Thumbnails are keyed by content hash like the blobs, so a file uploaded
+ * many times is thumbnailed once. Large images are subsampled while decoding
+ * and images above max-pixels are skipped, so a decompression bomb cannot
+ * exhaust the heap.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThumbnailService {
+
+    public static final Set<String> SUPPORTED_TYPES = Set.of("image/png", "image/jpeg", "image/gif");
+
+    private final AttachmentStore attachmentStore;
+
+    @Value("${spark.attachments.thumbnail-size:320}")
+    private int thumbnailSize;
+
+    @Value("${spark.attachments.thumbnail-max-pixels:40000000}")
+    private long maxPixels;
+
+    @Async
+    public void generate(String sha256, String contentType) {
+        if (!SUPPORTED_TYPES.contains(contentType) || Files.exists(attachmentStore.thumbnailPath(sha256))) {
+            return;
+        }
+        try (ImageInputStream in = ImageIO.createImageInputStream(attachmentStore.blobPath(sha256).toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.info("Skipping thumbnail for {}: {}x{} is over the pixel limit", sha256, width, height);
+                    return;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (thumbnailSize * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                attachmentStore.writeThumbnail(sha256, toJpeg(scale(reader.read(0, param))));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to generate thumbnail for {}", sha256, e);
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source) {
+        double factor = Math.min(1.0, (double) thumbnailSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * factor));
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            // JPEG has no alpha; transparent screenshots get a white background
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return thumbnail;
+    }
+
+    private static byte[] toJpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
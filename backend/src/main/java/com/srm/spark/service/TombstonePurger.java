@@ -0,0 +1,102 @@
+package com.srm.spark.service;
+
+import com.srm.spark.repository.AttachmentRepository;
+import com.srm.spark.repository.QuestionRepository;
+import com.srm.spark.repository.ReplyRepository;
+import com.srm.spark.repository.VoteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Physically removes soft-deleted questions and replies in small batches,
+ * then attachment files nothing references any more.
+ * Runs off-peak by default so user-facing deletes only ever flip a flag.
+ */
+@Component
+@Lazy(false)
+@RequiredArgsConstructor
+@Slf4j
+public class TombstonePurger {
+
+    private final QuestionRepository questionRepository;
+    private final ReplyRepository replyRepository;
+    private final VoteRepository voteRepository;
+    private final AttachmentRepository attachmentRepository;
+    private final AttachmentService attachmentService;
+    private final BulkDeleteService bulkDeleteService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spark.purge.batch-size:200}")
+    private int batchSize;
+
+    @Value("${spark.purge.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${spark.purge.grace-minutes:60}")
+    private long graceMinutes;
+
+    @Scheduled(cron = "${spark.purge.cron:0 */10 1-5 * * *}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+        int batches = 0;
+        long questions = 0;
+        long replies = 0;
+
+        while (batches < maxBatchesPerRun) {
+            int purged = purgeQuestionBatch(cutoff);
+            if (purged == 0) {
+                break;
+            }
+            questions += purged;
+            batches++;
+        }
+
+        while (batches < maxBatchesPerRun) {
+            int purged = purgeReplyBatch(cutoff);
+            if (purged == 0) {
+                break;
+            }
+            replies += purged;
+            batches++;
+        }
+
+        if (questions > 0 || replies > 0) {
+            log.info("Purged {} questions and {} replies in {} batches", questions, replies, batches);
+        }
+
+        attachmentService.sweepOrphanedFiles();
+    }
+
+    private int purgeQuestionBatch(LocalDateTime cutoff) {
+        Integer purged = transactionTemplate.execute(status -> {
+            List<String> ids = questionRepository.findTombstonedIds(cutoff, PageRequest.of(0, batchSize));
+            if (!ids.isEmpty()) {
+                bulkDeleteService.deleteQuestions(ids);
+            }
+            return ids.size();
+        });
+        return purged == null ? 0 : purged;
+    }
+
+    private int purgeReplyBatch(LocalDateTime cutoff) {
+        Integer purged = transactionTemplate.execute(status -> {
+            List<String> ids = replyRepository.findTombstonedIds(cutoff, PageRequest.of(0, batchSize));
+            if (!ids.isEmpty()) {
+                voteRepository.deleteByReplyIdIn(ids);
+                attachmentRepository.deleteByReplyIdIn(ids);
+                replyRepository.deleteByIdIn(ids);
+            }
+            return ids.size();
+        });
+        return purged == null ? 0 : purged;
+    }
+}
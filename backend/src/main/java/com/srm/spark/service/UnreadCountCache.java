@@ -0,0 +1,115 @@
+package com.srm.spark.service;
+
+import com.srm.spark.cluster.ClusterBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory unread-notification counts per user. Counts are loaded from the
+ * database on a miss and then kept current by the fan-out worker's deltas;
+ * entries expire after spark.notifications.count-ttl-seconds so a delta lost
+ * to a race with a load (or a question being deleted) heals on its own.
+ * Deltas and invalidations are broadcast over the {@link ClusterBus}, so
+ * counts cached on other instances stay current too.
+ */
+@Component
+public class UnreadCountCache {
+
+    private static final String DELTAS = "unread-deltas";
+    private static final String INVALIDATIONS = "unread-invalidations";
+    // Keeps a message under PostgreSQL's 8000-byte NOTIFY payload limit
+    private static final int MAX_USERS_PER_MESSAGE = 150;
+
+    private final ClusterBus clusterBus;
+    private final ConcurrentHashMap<String, Entry> counts = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public UnreadCountCache(MeterRegistry meterRegistry, ClusterBus clusterBus,
+                            @Value("${spark.notifications.count-ttl-seconds:60}") long ttlSeconds,
+                            @Value("${spark.notifications.count-cache-size:10000}") int maxEntries) {
+        this.clusterBus = clusterBus;
+        this.hits = meterRegistry.counter("spark.notifications.unread.cache", "result", "hit");
+        this.misses = meterRegistry.counter("spark.notifications.unread.cache", "result", "miss");
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        clusterBus.subscribe(DELTAS, Deltas.class, deltas -> deltas.byUser().forEach(this::addLocally));
+        clusterBus.subscribe(INVALIDATIONS, String.class, counts::remove);
+        clusterBus.onResync(counts::clear);
+    }
+
+    // Unread count changes per user id
+    public record Deltas(Map<String, Integer> byUser) {
+    }
+
+    public long get(String userId, LongSupplier loader) {
+        long now = System.nanoTime();
+        Entry entry = counts.get(userId);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            hits.increment();
+            return entry.count.get();
+        }
+        misses.increment();
+        long count = loader.getAsLong();
+        if (counts.size() >= maxEntries) {
+            evictOne();
+        }
+        counts.put(userId, new Entry(count, now));
+        return count;
+    }
+
+    /** Applies changes to cached counts, here and on the other instances; users not cached load fresh on their next read. */
+    public void addAll(Map<String, Integer> deltas) {
+        deltas.forEach(this::addLocally);
+        List<Map.Entry<String, Integer>> entries = List.copyOf(deltas.entrySet());
+        for (int from = 0; from < entries.size(); from += MAX_USERS_PER_MESSAGE) {
+            Map<String, Integer> chunk = new HashMap<>();
+            entries.subList(from, Math.min(from + MAX_USERS_PER_MESSAGE, entries.size()))
+                    .forEach(entry -> chunk.put(entry.getKey(), entry.getValue()));
+            clusterBus.publish(DELTAS, new Deltas(chunk));
+        }
+    }
+
+    public void invalidate(String userId) {
+        counts.remove(userId);
+        clusterBus.publish(INVALIDATIONS, userId);
+    }
+
+    private void addLocally(String userId, long delta) {
+        Entry entry = counts.get(userId);
+        if (entry != null) {
+            entry.count.addAndGet(delta);
+        }
+    }
+
+    private void evictOne() {
+        Iterator<String> keys = counts.keySet().iterator();
+        if (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static final class Entry {
+        private final AtomicLong count;
+        private final long loadedAt;
+
+        private Entry(long count, long loadedAt) {
+            this.count = new AtomicLong(count);
+            this.loadedAt = loadedAt;
+        }
+    }
+}
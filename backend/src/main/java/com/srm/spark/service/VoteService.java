@@ -0,0 +1,66 @@
+package com.srm.spark.service;
+
+import com.srm.spark.model.Vote;
+import com.srm.spark.repository.QuestionRepository;
+import com.srm.spark.repository.ReplyRepository;
+import com.srm.spark.repository.VoteRepository;
+import com.srm.spark.security.UserPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Upvotes are idempotent per user: voting twice or removing a vote that does
+ * not exist changes nothing. Score changes are handed to
+ * {@link VoteTallyService} only after the vote row has committed.
+ */
+@Service
+@RequiredArgsConstructor
+public class VoteService {
+
+    private final VoteRepository voteRepository;
+    private final QuestionRepository questionRepository;
+    private final ReplyRepository replyRepository;
+    private final VoteTallyService voteTallyService;
+
+    /** Returns true if this call recorded the vote. */
+    public boolean vote(String targetType, String targetId, UserPrincipal principal) {
+        checkVotable(targetType, targetId, principal);
+        int inserted;
+        try {
+            inserted = voteRepository.insertIfAbsent(principal.getId(), targetType, targetId, LocalDateTime.now());
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request from the same user recorded it first
+            inserted = 0;
+        }
+        if (inserted > 0) {
+            voteTallyService.add(targetType, targetId, 1);
+        }
+        return inserted > 0;
+    }
+
+    /** Returns true if this call removed a vote. */
+    public boolean unvote(String targetType, String targetId, UserPrincipal principal) {
+        int deleted = voteRepository.deleteVote(principal.getId(), targetType, targetId);
+        if (deleted > 0) {
+            voteTallyService.add(targetType, targetId, -1);
+        }
+        return deleted > 0;
+    }
+
+    private void checkVotable(String targetType, String targetId, UserPrincipal principal) {
+        String label = Vote.QUESTION.equals(targetType) ? "Question" : "Reply";
+        Optional<String> authorId = Vote.QUESTION.equals(targetType)
+                ? questionRepository.findAuthorIdById(targetId)
+                : replyRepository.findAuthorIdById(targetId);
+        if (authorId.isEmpty()) {
+            throw new RuntimeException(label + " not found with id: " + targetId);
+        }
+        if (authorId.get().equals(principal.getId())) {
+            throw new RuntimeException("You cannot vote on your own " + label.toLowerCase());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.srm.spark.service;
+
+import com.srm.spark.model.Vote;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Score counters for questions and replies. Votes add to a striped in-memory
+ * counter per target, so concurrent voters on a hot question never contend on
+ * its row; a flusher drains the counters periodically and applies the net
+ * deltas as relative {@code score = score + ?} updates in one batch. A batch
+ * commits or rolls back as a whole, so a failed one is simply kept for the
+ * next flush; rows are updated in id order, so instances flushing the same
+ * targets cannot deadlock each other. Scores
+ * are recounted from the vote rows at startup, before the web server accepts
+ * requests, which repairs any deltas lost to a crash.
+ *
+ * When other instances may be running (any cluster transport but "local")
+ * that recount would race with their unflushed deltas, which are already in
+ * the vote rows and would be added a second time. There a scheduled repair
+ * takes its place: every repair-millis it lists the targets whose score
+ * differs from their vote count, and only corrects those that drifted by
+ * exactly the same score and count at the previous check too. A delta
+ * pending anywhere at the first check has been flushed by the second, which
+ * moves the score, so a stable drift is a lost delta and not one in flight.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class VoteTallyService implements SmartLifecycle {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Tally questions = new Tally("questions", Vote.QUESTION);
+    private final Tally replies = new Tally("replies", Vote.REPLY);
+    private volatile boolean running;
+
+    @Value("${spark.votes.reconcile-on-startup:true}")
+    private boolean reconcileOnStartup;
+
+    @Value("${spark.cluster.transport:local}")
+    private String clusterTransport;
+
+    public VoteTallyService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void add(String targetType, String targetId, long delta) {
+        tallyFor(targetType).add(targetId, delta);
+    }
+
+    @Scheduled(fixedDelayString = "${spark.votes.flush-millis:1000}")
+    public synchronized void flush() {
+        questions.flush();
+        replies.flush();
+    }
+
+    /** Corrects drift that was already there, unchanged, at the previous run; see the class comment. */
+    @Scheduled(fixedDelayString = "${spark.votes.repair-millis:600000}",
+            initialDelayString = "${spark.votes.repair-millis:600000}")
+    public void repair() {
+        if (!reconcileOnStartup || "local".equals(clusterTransport)) {
+            return;
+        }
+        int repaired = questions.repair() + replies.repair();
+        if (repaired > 0) {
+            log.info("Repaired {} scores that drifted from their votes", repaired);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (reconcileOnStartup && !"local".equals(clusterTransport)) {
+            log.info("Peers on the {} cluster transport may hold unflushed votes; drifted scores are repaired "
+                    + "by the scheduled check instead of a startup recount", clusterTransport);
+        } else if (reconcileOnStartup) {
+            int drifted = questions.reconcile() + replies.reconcile();
+            if (drifted > 0) {
+                log.info("Recounted {} scores from votes", drifted);
+            }
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before the web server so no vote is counted both in memory and by the recount
+        return 0;
+    }
+
+    private Tally tallyFor(String targetType) {
+        return Vote.QUESTION.equals(targetType) ? questions : replies;
+    }
+
+    private final class Tally {
+
+        private final Map<String, LongAdder> deltas = new ConcurrentHashMap<>();
+        private final String table;
+        private final String targetType;
+        private final String updateSql;
+        private final String countSql;
+        // Drift seen by the previous repair: target id -> {score, vote count}
+        private Map<String, long[]> drifted = Map.of();
+
+        Tally(String table, String targetType) {
+            this.table = table;
+            this.targetType = targetType;
+            this.updateSql = "UPDATE " + table + " SET score = score + ? WHERE id = ?";
+            this.countSql = "(SELECT COUNT(*) FROM votes v WHERE v.target_type = '" + targetType
+                    + "' AND v.target_id = " + table + ".id)";
+        }
+
+        void add(String targetId, long delta) {
+            LongAdder adder = deltas.get(targetId);
+            if (adder == null) {
+                adder = deltas.computeIfAbsent(targetId, id -> new LongAdder());
+            }
+            adder.add(delta);
+            if (deltas.get(targetId) != adder) {
+                // The flusher retired this counter as idle after we looked it up; move our delta over
+                rescue(targetId, adder);
+            }
+        }
+
+        void flush() {
+            List<Map.Entry<String, Long>> batch = new ArrayList<>();
+            for (Map.Entry<String, LongAdder> entry : deltas.entrySet()) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta != 0) {
+                    batch.add(Map.entry(entry.getKey(), delta));
+                } else if (deltas.remove(entry.getKey(), entry.getValue())) {
+                    // Catches votes that landed between the reset and the removal
+                    rescue(entry.getKey(), entry.getValue());
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            batch.sort(Map.Entry.comparingByKey());
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(updateSql, batch, batch.size(), (ps, row) -> {
+                            ps.setLong(1, row.getValue());
+                            ps.setString(2, row.getKey());
+                        }));
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush {} {} scores, keeping them for the next flush", batch.size(), targetType, e);
+                batch.forEach(row -> add(row.getKey(), row.getValue()));
+            }
+        }
+
+        /** Sets every drifted score to its vote count; returns the number of rows changed. */
+        int reconcile() {
+            return jdbcTemplate.update("UPDATE " + table + " SET score = " + countSql + " WHERE score <> " + countSql);
+        }
+
+        /** Sets drifted scores to their vote count if the drift is unchanged since the last call. */
+        int repair() {
+            Map<String, long[]> current = new HashMap<>();
+            jdbcTemplate.query("SELECT id, score, " + countSql + " FROM " + table + " WHERE score <> " + countSql,
+                    rs -> {
+                        current.put(rs.getString(1), new long[]{rs.getLong(2), rs.getLong(3)});
+                    });
+            List<Map.Entry<String, long[]>> stable = current.entrySet().stream()
+                    .filter(entry -> drifted.containsKey(entry.getKey())
+                            && Arrays.equals(drifted.get(entry.getKey()), entry.getValue()))
+                    .toList();
+            int repaired = 0;
+            if (!stable.isEmpty()) {
+                // Re-checked in the update, so a vote landing since the select leaves the row alone
+                int[] counts = jdbcTemplate.batchUpdate("UPDATE " + table + " SET score = " + countSql
+                                + " WHERE id = ? AND score = ? AND " + countSql + " = ?", stable, stable.size(),
+                        (ps, entry) -> {
+                            ps.setString(1, entry.getKey());
+                            ps.setLong(2, entry.getValue()[0]);
+                            ps.setLong(3, entry.getValue()[1]);
+                        })[0];
+                for (int count : counts) {
+                    repaired += Math.max(count, 0);
+                }
+                stable.forEach(entry -> current.remove(entry.getKey()));
+            }
+            drifted = current;
+            return repaired;
+        }
+
+        private void rescue(String targetId, LongAdder orphan) {
+            long delta = orphan.sumThenReset();
+            if (delta != 0) {
+                add(targetId, delta);
+            }
+        }
+    }
+}
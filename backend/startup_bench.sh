@@ -0,0 +1,81 @@
+#!/bin/sh
+# Measures startup time and time-to-first-request for the backend in:
+#   1. the plain fat jar with default settings
+#   2. the prod profile (lazy init, schema validation, no H2 console)
+#   3. prod + an AppCDS archive
+#   4. prod + AppCDS + Spring AOT
+# Usage: ./startup_bench.sh [RUNS] [PORT]
+# Set SKIP_BUILD=1 to reuse target/jvm and target/aot from a previous run.
+
+RUNS=${1:-3}
+PORT=${2:-8080}
+cd "$(dirname "$0")"
+ROOT=$(pwd)
+WORK="$ROOT/target/startup-bench"
+MAIN=com.srm.spark.SparkDoubtApplication
+
+if [ "$SKIP_BUILD" != "1" ]; then
+  echo "📦 Building plain and AOT jars..."
+  mvn -B -q -DskipTests package || exit 1
+  mkdir -p target/jvm && cp target/spark-doubt-backend-1.0.0.jar target/jvm/app.jar
+  mvn -B -q -DskipTests -Paot package || exit 1
+  mkdir -p target/aot && cp target/spark-doubt-backend-1.0.0.jar target/aot/app.jar
+fi
+
+rm -rf "$WORK" && mkdir -p "$WORK"
+cd "$WORK" || exit 1
+
+# Explode a fat jar into plain jars so AppCDS can archive every class
+explode() {
+  mkdir -p "$2" && (cd "$2" && unzip -q "$1")
+  (cd "$2/BOOT-INF/classes" && jar cf ../../app-classes.jar .)
+  CP="$2/app-classes.jar"
+  for lib in $(ls "$2"/BOOT-INF/lib/*.jar | sort); do CP="$CP:$lib"; done
+  echo "$CP"
+}
+JVM_CP=$(explode "$ROOT/target/jvm/app.jar" "$WORK/jvm")
+AOT_CP=$(explode "$ROOT/target/aot/app.jar" "$WORK/aot")
+
+ARGS="--server.port=$PORT --spring.datasource.url=jdbc:h2:file:$WORK/data/sparkdb"
+
+echo "🗄️  Creating schema for the validate-only prod profile..."
+java -Dspring.context.exit=onRefresh -jar "$ROOT/target/jvm/app.jar" $ARGS > schema.log 2>&1
+
+echo "🧊 Training AppCDS archives..."
+java -XX:ArchiveClassesAtExit=jvm.jsa -Dspring.context.exit=onRefresh -cp "$JVM_CP" $MAIN \
+  $ARGS --spring.profiles.active=prod > train-jvm.log 2>&1
+java -XX:ArchiveClassesAtExit=aot.jsa -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh -cp "$AOT_CP" $MAIN \
+  $ARGS --spring.profiles.active=prod > train-aot.log 2>&1
+
+now_ms() { echo $(($(date +%s%N) / 1000000)); }
+
+# $1 label, remaining args: java command line
+measure() {
+  LABEL=$1; shift
+  i=0
+  : > results.txt
+  while [ "$i" -lt "$RUNS" ]; do
+    START=$(now_ms)
+    "$@" > run.log 2>&1 &
+    PID=$!
+    until curl -s -o /dev/null -f "http://localhost:$PORT/api/pages"; do
+      if ! kill -0 $PID 2>/dev/null; then echo "   $LABEL failed, see $WORK/run.log"; return; fi
+      sleep 0.05
+    done
+    FIRST=$(($(now_ms) - START))
+    STARTED=$(sed -n 's/.*Started SparkDoubtApplication in \([0-9.]*\) seconds.*/\1/p' run.log)
+    echo "$STARTED $FIRST" >> results.txt
+    kill $PID; wait $PID 2>/dev/null
+    i=$((i + 1))
+  done
+  awk -v label="$LABEL" '{ s += $1; f += $2 } END {
+    printf "%-28s started in %6.2f s   first request after %6d ms\n", label, s / NR, f / NR }' results.txt
+}
+
+echo ""
+echo "⏱️  Averages over $RUNS runs:"
+measure "fat jar, default profile" java -jar "$ROOT/target/jvm/app.jar" $ARGS
+measure "prod profile" java -cp "$JVM_CP" $MAIN $ARGS --spring.profiles.active=prod
+measure "prod + AppCDS" java -XX:SharedArchiveFile=jvm.jsa -cp "$JVM_CP" $MAIN $ARGS --spring.profiles.active=prod
+measure "prod + AppCDS + AOT" java -XX:SharedArchiveFile=aot.jsa -Dspring.aot.enabled=true -cp "$AOT_CP" $MAIN \
+  $ARGS --spring.profiles.active=prod
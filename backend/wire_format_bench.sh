@@ -0,0 +1,64 @@
+#!/bin/sh
+# Compares payload size and fetch time of JSON, CBOR and Smile responses
+# Usage: ./wire_format_bench.sh [PORT] [ITERATIONS] [SEED_QUESTIONS]
+#
+# SEED_QUESTIONS > 0 registers a bench user and posts that many questions
+# (with one reply each) to the CSE page before measuring. One user posting
+# that fast trips the posting limits, so start the server for seeding with e.g.
+#   --spark.moderation.burst=100000 --spark.moderation.posts-per-hour=100000
+
+PORT=${1:-8080}
+ITERATIONS=${2:-50}
+SEED=${3:-0}
+BASE="http://localhost:${PORT}/api"
+
+PAGES=$(curl -s "$BASE/pages")
+PAGE_ID=$(printf "%s" "$PAGES" | sed -n 's/.*"id":"\([^"]*\)","name":"CSE".*/\1/p')
+if [ -z "$PAGE_ID" ]; then
+  PAGE_ID=$(printf "%s" "$PAGES" | sed -n 's/.*"id":"\([^"]*\)".*/\1/p' | head -n1)
+fi
+
+if [ "$SEED" -gt 0 ]; then
+  curl -s -X POST "$BASE/auth/register" -H "Content-Type: application/json" \
+    -d '{"name":"bench","email":"bench@example.com","password":"benchPass1"}' > /dev/null
+  TOKEN=$(curl -s -X POST "$BASE/auth/login" -H "Content-Type: application/json" \
+    -d '{"email":"bench@example.com","password":"benchPass1"}' | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+  DESC="Why does the time complexity of building a heap come out as O(n) rather than O(n log n) when each sift-down is O(log n)? Looking for an intuitive argument plus the summation."
+  i=1
+  while [ "$i" -le "$SEED" ]; do
+    Q=$(curl -s -X POST "$BASE/questions" -H "Content-Type: application/json" -H "Authorization: Bearer $TOKEN" \
+      -d "{\"title\":\"Benchmark question $i\",\"description\":\"$DESC\",\"pageId\":\"$PAGE_ID\"}" \
+      | sed -n 's/.*"id":"\([^"]*\)".*/\1/p' | head -n1)
+    if [ -z "$Q" ]; then
+      echo "Seeding stopped after $((i - 1)) questions (posting limit?), see Usage"
+      exit 1
+    fi
+    curl -s -X POST "$BASE/replies/question/$Q" -H "Content-Type: application/json" -H "Authorization: Bearer $TOKEN" \
+      -d '{"content":"Most nodes sit near the leaves, where sift-down is cheap; the sum of heights is O(n)."}' > /dev/null
+    i=$((i + 1))
+  done
+  echo "Seeded $SEED questions on page $PAGE_ID"
+fi
+
+measure() {
+  # $1 label, $2 url, $3 accept, $4 accept-encoding
+  i=0
+  : > /tmp/wire_bench.$$
+  while [ "$i" -lt "$ITERATIONS" ]; do
+    curl -s -o /dev/null -H "Accept: $3" -H "Accept-Encoding: $4" \
+      -w "%{size_download} %{time_total}\n" "$2" >> /tmp/wire_bench.$$
+    i=$((i + 1))
+  done
+  awk -v label="$1" '{ bytes += $1; secs += $2 } END {
+    printf "%-34s %10d bytes %10.2f ms\n", label, bytes / NR, secs * 1000 / NR }' /tmp/wire_bench.$$
+  rm -f /tmp/wire_bench.$$
+}
+
+for ENDPOINT in "questions/page/$PAGE_ID?size=100" "questions/feed?pageId=$PAGE_ID&size=100"; do
+  echo ""
+  echo "GET /api/$ENDPOINT  ($ITERATIONS requests each, averages)"
+  for FORMAT in application/json application/cbor application/x-jackson-smile; do
+    measure "$FORMAT" "$BASE/$ENDPOINT" "$FORMAT" identity
+    measure "$FORMAT + gzip" "$BASE/$ENDPOINT" "$FORMAT" gzip
+  done
+done
@@ -9,6 +9,61 @@ const getAuthHeaders = () => {
   };
 };
 
+const storeSession = (data: AuthResponse) => {
+  localStorage.setItem('token', data.token);
+  localStorage.setItem('refreshToken', data.refreshToken);
+  localStorage.setItem('user', JSON.stringify(data));
+};
+
+const clearSession = () => {
+  localStorage.removeItem('token');
+  localStorage.removeItem('refreshToken');
+  localStorage.removeItem('user');
+};
+
+// Fired when the session can no longer be refreshed, so AuthContext can log out
+export const SESSION_EXPIRED_EVENT = 'auth:session-expired';
+
+// Shared by concurrent 401s, since each refresh token can only be exchanged once
+let refreshing: Promise<boolean> | null = null;
+
+const refreshSession = (): Promise<boolean> => {
+  if (!refreshing) {
+    refreshing = (async () => {
+      const refreshToken = localStorage.getItem('refreshToken');
+      if (!refreshToken) return false;
+      try {
+        const response = await fetch(`${API_BASE_URL}/auth/refresh`, {
+          method: 'POST',
+          headers: { 'Content-Type': 'application/json' },
+          body: JSON.stringify({ refreshToken }),
+        });
+        if (!response.ok) {
+          clearSession();
+          window.dispatchEvent(new Event(SESSION_EXPIRED_EVENT));
+          return false;
+        }
+        storeSession(await response.json());
+        return true;
+      } catch {
+        return false;
+      }
+    })().finally(() => {
+      refreshing = null;
+    });
+  }
+  return refreshing;
+};
+
+// Authenticated fetch: on a 401 the access token is refreshed once and the request retried
+const authFetch = async (url: string, init: RequestInit = {}): Promise<Response> => {
+  const response = await fetch(url, { ...init, headers: getAuthHeaders() });
+  if (response.status !== 401 || !(await refreshSession())) {
+    return response;
+  }
+  return fetch(url, { ...init, headers: getAuthHeaders() });
+};
+
 // Types
 export interface User {
   id: string;
@@ -20,6 +75,8 @@ export interface User {
 export interface AuthResponse {
   token: string;
   type: string;
+  expiresIn: number;
+  refreshToken: string;
   id: string;
   name: string;
   email: string;
@@ -70,8 +127,7 @@ export const authApi = {
       throw new Error(error.message || 'Registration failed');
     }
     const data = await response.json();
-    localStorage.setItem('token', data.token);
-    localStorage.setItem('user', JSON.stringify(data));
+    storeSession(data);
     return data;
   },
 
@@ -86,14 +142,20 @@ export const authApi = {
       throw new Error(error.message || 'Login failed');
     }
     const data = await response.json();
-    localStorage.setItem('token', data.token);
-    localStorage.setItem('user', JSON.stringify(data));
+    storeSession(data);
     return data;
   },
 
   logout: () => {
-    localStorage.removeItem('token');
-    localStorage.removeItem('user');
+    const refreshToken = localStorage.getItem('refreshToken');
+    const headers = getAuthHeaders();
+    clearSession();
+    // Revokes the refresh token and the access token server-side; the local session is gone either way
+    fetch(`${API_BASE_URL}/auth/logout`, {
+      method: 'POST',
+      headers,
+      body: JSON.stringify({ refreshToken }),
+    }).catch(() => undefined);
   },
 
   getCurrentUser: (): User | null => {
@@ -146,9 +208,8 @@ export const questionsApi = {
   },
 
   create: async (title: string, description: string, pageId: string): Promise<Question> => {
-    const response = await fetch(`${API_BASE_URL}/questions`, {
+    const response = await authFetch(`${API_BASE_URL}/questions`, {
       method: 'POST',
-      headers: getAuthHeaders(),
       body: JSON.stringify({ title, description, pageId }),
     });
     if (!response.ok) {
@@ -159,9 +220,8 @@ export const questionsApi = {
   },
 
   update: async (id: string, title: string, description: string, pageId: string): Promise<Question> => {
-    const response = await fetch(`${API_BASE_URL}/questions/${id}`, {
+    const response = await authFetch(`${API_BASE_URL}/questions/${id}`, {
       method: 'PUT',
-      headers: getAuthHeaders(),
       body: JSON.stringify({ title, description, pageId }),
     });
     if (!response.ok) {
@@ -172,9 +232,8 @@ export const questionsApi = {
   },
 
   delete: async (id: string): Promise<void> => {
-    const response = await fetch(`${API_BASE_URL}/questions/${id}`, {
+    const response = await authFetch(`${API_BASE_URL}/questions/${id}`, {
       method: 'DELETE',
-      headers: getAuthHeaders(),
     });
     if (!response.ok) {
       const error = await response.json();
@@ -194,11 +253,10 @@ export const repliesApi = {
   },
 
   create: async (questionId: string, content: string): Promise<Reply> => {
-    const response = await fetch(
+    const response = await authFetch(
       `${API_BASE_URL}/replies/question/${questionId}`,
       {
         method: 'POST',
-        headers: getAuthHeaders(),
         body: JSON.stringify({ content }),
       }
     );
@@ -210,9 +268,8 @@ export const repliesApi = {
   },
 
   update: async (id: string, content: string): Promise<Reply> => {
-    const response = await fetch(`${API_BASE_URL}/replies/${id}`, {
+    const response = await authFetch(`${API_BASE_URL}/replies/${id}`, {
       method: 'PUT',
-      headers: getAuthHeaders(),
       body: JSON.stringify({ content }),
     });
     if (!response.ok) {
@@ -223,9 +280,8 @@ export const repliesApi = {
   },
 
   delete: async (id: string): Promise<void> => {
-    const response = await fetch(`${API_BASE_URL}/replies/${id}`, {
+    const response = await authFetch(`${API_BASE_URL}/replies/${id}`, {
       method: 'DELETE',
-      headers: getAuthHeaders(),
     });
     if (!response.ok) {
       const error = await response.json();